@@ -17,20 +17,27 @@ package org.bruno.sonus;
  */
 
 import org.bruno.sonus.commands.*;
+import org.bruno.sonus.data.RegionSnapshot;
 import org.bruno.sonus.handlers.*;
 import org.bruno.sonus.helpers.FileHelper;
 import org.bruno.sonus.helpers.FoliaHelper;
 import org.bruno.sonus.helpers.MessagesHelper;
 import org.bruno.sonus.listeners.PlayerConnectionListener;
+import org.bruno.sonus.listeners.PlayerMovementListener;
 import org.bruno.sonus.listeners.WandListener;
+import org.bruno.sonus.listeners.WorldListener;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.storage.RegionStorages;
 import org.bruno.sonus.utils.Constants;
 import org.bruno.sonus.utils.ServerVersion;
+import org.bruno.sonus.utils.StorageMode;
 import org.bukkit.Bukkit;
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bstats.bukkit.Metrics;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 public final class Sonus extends JavaPlugin {
@@ -42,6 +49,9 @@ public final class Sonus extends JavaPlugin {
     private UpdaterHandler updaterHandler;
     private MessagesHandler messagesHandler;
     private SelectionHandler selectionHandler;
+    private JournalHandler journalHandler;
+    private RegionStorage regionStorage;
+    private FileWatchHandler fileWatchHandler;
 
     private MessagesHelper messagesHelper;
     private FileHelper fileHelper;
@@ -78,15 +88,30 @@ public final class Sonus extends JavaPlugin {
 
         shutdownAllPluginTasks();
         HandlerList.unregisterAll(this);
+
+        // Write any region or sound changes that are still waiting to be saved
+        if (journalHandler != null) journalHandler.shutdown();
+        if (regionStorage != null) regionStorage.close();
+        if (fileHelper != null) fileHelper.shutdown();
     }
 
     public void startAllPluginTasks() {
         if (soundHandler != null) soundHandler.start();
+        if (fileWatchHandler != null) fileWatchHandler.start();
     }
 
-    public void reload() {
-        // Stop all repeating tasks
-        shutdownAllPluginTasks();
+    /**
+     * Reloads the configuration, regions and sound profiles without interrupting players' sounds.
+     * The new regions and profiles are built off the main thread and swapped in at once; only
+     * players whose region or bound profile changed have their sound restarted.
+     * Must be called on the main thread.
+     * @return A future completed once the new state is in use.
+     */
+    public CompletableFuture<Void> reload() {
+        // Make sure every saved change is on disk before the files are read back
+        if (journalHandler != null && !journalHandler.checkpoint()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Could not write the region journal to disk, so reloading would lose changes."));
+        }
 
         // Reload configuration files from disk
         reloadConfig();
@@ -97,8 +122,37 @@ public final class Sonus extends JavaPlugin {
         messagesHandler.reload(fileHelper.getMessagesConfig());
         messagesHelper.setPrefix(messagesHandler.getPrefix());
 
-        // Restart all repeating tasks with the new settings
-        startAllPluginTasks();
+        // Pick up changes to the auto-reload settings
+        fileWatchHandler.shutdown();
+        fileWatchHandler.start();
+
+        // Parse regions and profiles in the background, then swap them in and fix up only the affected players
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        foliaHelper.runAsyncTask(() -> {
+            try {
+                RegionSnapshot regions = regionHandler.prepareSnapshot();
+                SoundProfileHandler.ProfileData profiles = soundProfileHandler.readProfiles();
+
+                foliaHelper.runTaskOnMainThread(() -> {
+                    try {
+                        regionHandler.publish(regions);
+                        soundProfileHandler.publish(profiles);
+
+                        // Restart the repeating tasks with the new settings, then reconcile players
+                        if (soundHandler != null) {
+                            soundHandler.restart();
+                            soundHandler.reconcile();
+                        }
+                        result.complete(null);
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
     }
 
     private void setupComponents() throws Exception {
@@ -121,13 +175,33 @@ public final class Sonus extends JavaPlugin {
         messagesHelper.setDebugMode(this.configHandler.isDebugModeEnabled());
 
         // Handlers Initialization
-        this.regionHandler = new RegionHandler(this.fileHelper, getLogger());
-        this.soundProfileHandler = new SoundProfileHandler(this.fileHelper, getLogger(), this.regionHandler);
-        this.soundHandler = new SoundHandler(this.regionHandler, this.foliaHelper, this.soundProfileHandler, this.messagesHelper);
+        this.regionStorage = RegionStorages.create(this.configHandler.getStorageMode(), this.fileHelper, getLogger());
+        this.regionHandler = new RegionHandler(this.regionStorage, getLogger());
+        this.soundProfileHandler = new SoundProfileHandler(this.fileHelper, this.regionStorage, getLogger(), this.regionHandler);
+        loadRegionsAndProfiles();
+        if (this.configHandler.getStorageMode() == StorageMode.JOURNAL) {
+            this.journalHandler = new JournalHandler(this.fileHelper, this.regionStorage, this.regionHandler, this.soundProfileHandler, getLogger());
+            this.journalHandler.start();
+        }
+        this.soundHandler = new SoundHandler(this.regionHandler, this.foliaHelper, this.soundProfileHandler, this.messagesHelper, this.configHandler, getLogger());
+        this.fileWatchHandler = new FileWatchHandler(this.fileHelper, this.configHandler, this.regionHandler, this.soundProfileHandler,
+                this.soundHandler, this.messagesHandler, this.messagesHelper, this.foliaHelper, getLogger());
         this.selectionHandler = new SelectionHandler();
         this.updaterHandler = new UpdaterHandler(getLogger(), this.foliaHelper, this.configHandler, this.pluginInfoHandler);
     }
 
+    /**
+     * Parses the regions and sound profiles side by side on the fork-join pool, and only waits
+     * to put both in use.
+     */
+    private void loadRegionsAndProfiles() {
+        CompletableFuture<RegionSnapshot> regions = CompletableFuture.supplyAsync(regionHandler::prepareSnapshot);
+        CompletableFuture<SoundProfileHandler.ProfileData> profiles = CompletableFuture.supplyAsync(soundProfileHandler::readProfiles);
+
+        regionHandler.publish(regions.join());
+        soundProfileHandler.publish(profiles.join());
+    }
+
     private void setupIntegrations() {
         new Metrics(this, Constants.Integrations.BSTATS_ID);
         updaterHandler.performCheck();
@@ -139,10 +213,14 @@ public final class Sonus extends JavaPlugin {
         // Initialize all listeners and store their instances
         var playerConnectionListener = new PlayerConnectionListener(this.soundHandler, this.messagesHelper, this.configHandler, this.pluginInfoHandler);
         var wandListener = new WandListener(this, this.selectionHandler, this.messagesHelper, this.messagesHandler);
+        var playerMovementListener = new PlayerMovementListener(this.soundHandler);
+        var worldListener = new WorldListener(this.regionHandler);
 
         // Register all listeners instances
         Bukkit.getPluginManager().registerEvents(playerConnectionListener, this);
         Bukkit.getPluginManager().registerEvents(wandListener, this);
+        Bukkit.getPluginManager().registerEvents(playerMovementListener, this);
+        Bukkit.getPluginManager().registerEvents(worldListener, this);
     }
 
     private void setupCommands() {
@@ -155,6 +233,13 @@ public final class Sonus extends JavaPlugin {
         var deleteCommand = new DeleteCommand(this.regionHandler, this.messagesHelper, this.messagesHandler);
         var listCommand = new ListCommand(this.regionHandler, this.soundProfileHandler, this.messagesHelper, this.messagesHandler);
         var setCommand = new SetCommand(this.regionHandler, this.soundProfileHandler, this.messagesHelper, this.messagesHandler);
+        var convertCommand = new ConvertCommand(this.fileHelper, this.regionHandler, this.soundProfileHandler, this.foliaHelper, this.messagesHelper, this.messagesHandler, getLogger());
+
+        var importCommand = new ImportCommand(this.fileHelper, this.regionHandler, this.soundProfileHandler, this.soundHandler,
+                this.foliaHelper, this.messagesHelper, this.messagesHandler, getLogger());
+        var exportCommand = new ExportCommand(this.fileHelper, this.regionHandler, this.soundProfileHandler, this.foliaHelper,
+                this.messagesHelper, this.messagesHandler, getLogger());
+        var checkCommand = new CheckCommand(this.regionHandler, this.foliaHelper, this.messagesHelper, this.messagesHandler, getLogger());
 
         SonusCommand mainCommand = new SonusCommand(getLogger(), this.messagesHelper);
         mainCommand.registerSubCommand("help", helpCommand);
@@ -164,6 +249,10 @@ public final class Sonus extends JavaPlugin {
         mainCommand.registerSubCommand("delete", deleteCommand);
         mainCommand.registerSubCommand("list", listCommand);
         mainCommand.registerSubCommand("set", setCommand);
+        mainCommand.registerSubCommand("convert", convertCommand);
+        mainCommand.registerSubCommand("import", importCommand);
+        mainCommand.registerSubCommand("export", exportCommand);
+        mainCommand.registerSubCommand("check", checkCommand);
 
         Objects.requireNonNull(getCommand("so")).setExecutor(mainCommand);
         Objects.requireNonNull(getCommand("so")).setTabCompleter(mainCommand);
@@ -172,6 +261,8 @@ public final class Sonus extends JavaPlugin {
     public void shutdownAllPluginTasks() {
         if (soundHandler != null)
             soundHandler.shutdown();
+        if (fileWatchHandler != null)
+            fileWatchHandler.shutdown();
     }
 
     private void sendStartupMessages() {
@@ -0,0 +1,105 @@
+package org.bruno.sonus.commands;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.handlers.MessagesHandler;
+import org.bruno.sonus.handlers.RegionHandler;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.helpers.PermissionsHelper;
+import org.bruno.sonus.utils.OverlapAnalyzer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Reports regions that overlap each other, including regions of worlds that are not loaded.
+ */
+public class CheckCommand implements SubCommand {
+    // Overlaps listed in chat; the console always gets all of them.
+    private static final int MAX_LISTED = 10;
+
+    private final RegionHandler regionHandler;
+    private final FoliaHelper foliaHelper;
+    private final MessagesHelper messagesHelper;
+    private final MessagesHandler messagesHandler;
+    private final Logger logger;
+
+    public CheckCommand(RegionHandler regionHandler, FoliaHelper foliaHelper, MessagesHelper messagesHelper,
+                        MessagesHandler messagesHandler, Logger logger) {
+        this.regionHandler = regionHandler;
+        this.foliaHelper = foliaHelper;
+        this.messagesHelper = messagesHelper;
+        this.messagesHandler = messagesHandler;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!PermissionsHelper.hasCheckPermission(sender)) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getNoPermission());
+            return true;
+        }
+
+        RegionSnapshot snapshot = regionHandler.getSnapshot();
+        // Comparing many regions can take a while, so keep it off the main thread.
+        foliaHelper.runAsyncTask(() -> {
+            List<SoundRegion> regions = new ArrayList<>(snapshot.regions().values());
+            for (DormantRegions world : snapshot.dormantWorlds().values()) {
+                regions.addAll(world.toRegions(new UUID(0, 0)));
+            }
+            List<OverlapAnalyzer.Overlap> overlaps = OverlapAnalyzer.analyze(regions);
+            report(sender, regions.size(), overlaps);
+        });
+        return true;
+    }
+
+    private void report(CommandSender sender, int regionCount, List<OverlapAnalyzer.Overlap> overlaps) {
+        if (overlaps.isEmpty()) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getNoOverlaps().replace("{0}", String.valueOf(regionCount)));
+            return;
+        }
+
+        int nested = 0;
+        List<OverlapAnalyzer.Overlap> problems = new ArrayList<>();
+        for (OverlapAnalyzer.Overlap overlap : overlaps) {
+            if (overlap.kind() == OverlapAnalyzer.Kind.NESTED) {
+                nested++;
+            } else {
+                problems.add(overlap);
+            }
+        }
+        messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getOverlapsFound()
+                .replace("{0}", String.valueOf(regionCount))
+                .replace("{1}", String.valueOf(problems.size()))
+                .replace("{2}", String.valueOf(nested)));
+
+        boolean console = sender instanceof ConsoleCommandSender;
+        for (int i = 0; i < problems.size() && (console || i < MAX_LISTED); i++) {
+            sender.sendMessage(describe(problems.get(i)));
+        }
+        if (!console) {
+            if (problems.size() > MAX_LISTED) {
+                sender.sendMessage("§7... and " + (problems.size() - MAX_LISTED) + " more. See the console for the full list.");
+            }
+            for (OverlapAnalyzer.Overlap overlap : problems) {
+                logger.info(describe(overlap).replaceAll("§.", ""));
+            }
+        }
+    }
+
+    private static String describe(OverlapAnalyzer.Overlap overlap) {
+        String kind = (overlap.kind() == OverlapAnalyzer.Kind.SAME_SIZE) ? "§cSame size" : "§ePartial";
+        return String.format("§f▪ %s §7and §f%s §7(World: %s) §7| %s §7- §f%s §7plays where they meet",
+                overlap.first().name(),
+                overlap.second().name(),
+                overlap.first().worldName(),
+                kind,
+                overlap.first().name());
+    }
+}
@@ -0,0 +1,90 @@
+package org.bruno.sonus.commands;
+
+import org.bruno.sonus.handlers.MessagesHandler;
+import org.bruno.sonus.handlers.RegionHandler;
+import org.bruno.sonus.handlers.SoundProfileHandler;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.helpers.PermissionsHelper;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.storage.RegionStorages;
+import org.bruno.sonus.utils.StorageMode;
+import org.bukkit.command.CommandSender;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the loaded regions and sound assignments to another storage (regions.yml, regions.bin or sonus.db),
+ * so a server can switch storage modes.
+ */
+public class ConvertCommand implements SubCommand {
+    private static final List<String> FORMATS = List.of("yaml", "binary", "sqlite");
+
+    private final FileHelper fileHelper;
+    private final RegionHandler regionHandler;
+    private final SoundProfileHandler soundProfileHandler;
+    private final FoliaHelper foliaHelper;
+    private final MessagesHelper messagesHelper;
+    private final MessagesHandler messagesHandler;
+    private final Logger logger;
+
+    public ConvertCommand(FileHelper fileHelper, RegionHandler regionHandler, SoundProfileHandler soundProfileHandler,
+                          FoliaHelper foliaHelper, MessagesHelper messagesHelper, MessagesHandler messagesHandler, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.regionHandler = regionHandler;
+        this.soundProfileHandler = soundProfileHandler;
+        this.foliaHelper = foliaHelper;
+        this.messagesHelper = messagesHelper;
+        this.messagesHandler = messagesHandler;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!PermissionsHelper.hasConvertPermission(sender)) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getNoPermission());
+            return true;
+        }
+
+        if (args.length < 1 || !FORMATS.contains(args[0].toLowerCase())) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cUsage: /sonus convert <yaml|binary|sqlite>");
+            return true;
+        }
+
+        StorageMode format = StorageMode.valueOf(args[0].toUpperCase());
+
+        // Writing a large number of regions can take a while, so keep it off the main thread.
+        foliaHelper.runAsyncTask(() -> {
+            RegionStorage target = null;
+            try {
+                target = RegionStorages.create(format, fileHelper, logger);
+                int count = regionHandler.exportRegions(target, soundProfileHandler.getBindings());
+                messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getRegionsConverted()
+                        .replace("{0}", String.valueOf(count))
+                        .replace("{1}", target.name()));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not convert the regions to " + format + " storage.", e);
+                messagesHelper.sendCommandSenderMessage(sender, "&cAn error occurred while converting the regions. Please check the console for details.");
+            } finally {
+                if (target != null) target.close();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public List<String> getSubcommandCompletions(CommandSender sender, String[] args) {
+        if (args.length == 2) {
+            String input = args[1].toLowerCase();
+            return FORMATS.stream()
+                    .filter(format -> format.startsWith(input))
+                    .collect(Collectors.toList());
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,156 @@
+package org.bruno.sonus.commands;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.handlers.MessagesHandler;
+import org.bruno.sonus.handlers.RegionHandler;
+import org.bruno.sonus.handlers.SoundProfileHandler;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.helpers.PermissionsHelper;
+import org.bruno.sonus.utils.RegionTransferFile;
+import org.bukkit.command.CommandSender;
+import org.bukkit.util.Vector;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes every region and its sound profile to an NDJSON or CSV file in the plugin folder,
+ * in the format read by {@link ImportCommand}.
+ * <p>
+ * The regions are taken from a single snapshot and streamed to the file off the main thread.
+ */
+public class ExportCommand implements SubCommand {
+    // Regions between two progress messages.
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final FileHelper fileHelper;
+    private final RegionHandler regionHandler;
+    private final SoundProfileHandler soundProfileHandler;
+    private final FoliaHelper foliaHelper;
+    private final MessagesHelper messagesHelper;
+    private final MessagesHandler messagesHandler;
+    private final Logger logger;
+
+    public ExportCommand(FileHelper fileHelper, RegionHandler regionHandler, SoundProfileHandler soundProfileHandler,
+                         FoliaHelper foliaHelper, MessagesHelper messagesHelper, MessagesHandler messagesHandler, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.regionHandler = regionHandler;
+        this.soundProfileHandler = soundProfileHandler;
+        this.foliaHelper = foliaHelper;
+        this.messagesHelper = messagesHelper;
+        this.messagesHandler = messagesHandler;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!PermissionsHelper.hasExportPermission(sender)) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getNoPermission());
+            return true;
+        }
+
+        if (args.length < 1) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cUsage: /sonus export <file.ndjson|file.csv>");
+            return true;
+        }
+
+        String fileName = args[0];
+        RegionTransferFile.Format format = RegionTransferFile.Format.forFile(fileName);
+        if (format == null) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cThe file must end in .ndjson, .jsonl or .csv.");
+            return true;
+        }
+        Path file = fileHelper.resolveUserFile(fileName);
+        if (file == null) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cThe file must be inside the plugin folder.");
+            return true;
+        }
+
+        RegionSnapshot snapshot = regionHandler.getSnapshot();
+        foliaHelper.runAsyncTask(() -> {
+            try {
+                int count = exportFile(sender, snapshot, file, format);
+                messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getRegionsExported()
+                        .replace("{0}", String.valueOf(count))
+                        .replace("{1}", fileName));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not write " + fileName + ".", e);
+                messagesHelper.sendCommandSenderMessage(sender, "&cAn error occurred while writing " + fileName + ". Please check the console for details.");
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Streams the regions to a temporary file next to the target, which then replaces the target,
+     * so an export that fails halfway leaves the previous file intact.
+     */
+    private int exportFile(CommandSender sender, RegionSnapshot snapshot, Path file, RegionTransferFile.Format format) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, String> bindings = soundProfileHandler.getBindings();
+        int total = snapshot.size();
+        int written = 0;
+
+        try (RegionTransferFile.Writer writer = RegionTransferFile.create(tempFile, format)) {
+            for (SoundRegion region : snapshot.regions().values()) {
+                writer.write(new RegionTransferFile.Row(region.name(), region.worldName(),
+                        region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ(),
+                        bindings.get(region.name().toLowerCase())));
+                reportProgress(sender, ++written, total);
+            }
+            for (DormantRegions world : snapshot.dormantWorlds().values()) {
+                for (int i = 0; i < world.size(); i++) {
+                    Vector min = world.min(i);
+                    Vector max = world.max(i);
+                    writer.write(new RegionTransferFile.Row(world.name(i), world.worldName(),
+                            min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ(),
+                            bindings.get(world.name(i).toLowerCase())));
+                    reportProgress(sender, ++written, total);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+
+    private void reportProgress(CommandSender sender, int written, int total) {
+        if (written % PROGRESS_INTERVAL == 0 && written < total) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getExportProgress()
+                    .replace("{0}", String.valueOf(written))
+                    .replace("{1}", String.valueOf(total)));
+        }
+    }
+
+    @Override
+    public List<String> getSubcommandCompletions(CommandSender sender, String[] args) {
+        if (args.length == 2) {
+            String input = args[1].toLowerCase();
+            return Stream.of("regions.ndjson", "regions.csv")
+                    .filter(name -> name.startsWith(input))
+                    .collect(Collectors.toList());
+        }
+        return List.of();
+    }
+}
@@ -37,6 +37,10 @@ public class HelpCommand implements SubCommand {
         allCommands.add(new HelpEntry("/sonus list", "Lists all currently defined sound regions.", Constants.Permissions.CMD_LIST));
         allCommands.add(new HelpEntry("/sonus wand", "Gives you the region selection wand.", Constants.Permissions.CMD_WAND));
         allCommands.add(new HelpEntry("/sonus set <region_name> <sound_profile>", "Sets a profile sound to a region.", Constants.Permissions.CMD_SET));
+        allCommands.add(new HelpEntry("/sonus convert <yaml|binary|sqlite>", "Writes all regions to regions.yml, regions.bin or sonus.db.", Constants.Permissions.CMD_CONVERT));
+        allCommands.add(new HelpEntry("/sonus import <file> [replace]", "Adds regions from an NDJSON or CSV file in the plugin folder.", Constants.Permissions.CMD_IMPORT));
+        allCommands.add(new HelpEntry("/sonus export <file>", "Writes all regions to an NDJSON or CSV file in the plugin folder.", Constants.Permissions.CMD_EXPORT));
+        allCommands.add(new HelpEntry("/sonus check", "Lists regions that overlap each other.", Constants.Permissions.CMD_CHECK));
 
     }
 
@@ -0,0 +1,204 @@
+package org.bruno.sonus.commands;
+
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.handlers.MessagesHandler;
+import org.bruno.sonus.handlers.RegionHandler;
+import org.bruno.sonus.handlers.SoundHandler;
+import org.bruno.sonus.handlers.SoundProfileHandler;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.helpers.PermissionsHelper;
+import org.bruno.sonus.utils.RegionTransferFile;
+import org.bukkit.command.CommandSender;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Adds regions, and optionally their sound profiles, from an NDJSON or CSV file in the plugin folder.
+ * <p>
+ * The file is read and validated off the main thread, a batch of lines at a time. All regions
+ * are then added in one step on the main thread, so the spatial indexes are built and published only once.
+ */
+public class ImportCommand implements SubCommand {
+    // Lines validated together before their regions are staged.
+    private static final int BATCH_SIZE = 1000;
+    // Lines between two progress messages.
+    private static final int PROGRESS_INTERVAL = 10_000;
+    // Invalid lines reported in the console one by one; the rest are only counted.
+    private static final int MAX_LOGGED_ERRORS = 20;
+    // Placeholder world id; the real one is looked up by name when the regions are added.
+    private static final UUID UNRESOLVED_WORLD = new UUID(0, 0);
+
+    private final FileHelper fileHelper;
+    private final RegionHandler regionHandler;
+    private final SoundProfileHandler soundProfileHandler;
+    private final SoundHandler soundHandler;
+    private final FoliaHelper foliaHelper;
+    private final MessagesHelper messagesHelper;
+    private final MessagesHandler messagesHandler;
+    private final Logger logger;
+
+    public ImportCommand(FileHelper fileHelper, RegionHandler regionHandler, SoundProfileHandler soundProfileHandler,
+                         SoundHandler soundHandler, FoliaHelper foliaHelper, MessagesHelper messagesHelper,
+                         MessagesHandler messagesHandler, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.regionHandler = regionHandler;
+        this.soundProfileHandler = soundProfileHandler;
+        this.soundHandler = soundHandler;
+        this.foliaHelper = foliaHelper;
+        this.messagesHelper = messagesHelper;
+        this.messagesHandler = messagesHandler;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!PermissionsHelper.hasImportPermission(sender)) {
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getNoPermission());
+            return true;
+        }
+
+        if (args.length < 1 || (args.length > 1 && !args[1].equalsIgnoreCase("replace"))) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cUsage: /sonus import <file.ndjson|file.csv> [replace]");
+            return true;
+        }
+
+        String fileName = args[0];
+        RegionTransferFile.Format format = RegionTransferFile.Format.forFile(fileName);
+        if (format == null) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cThe file must end in .ndjson, .jsonl or .csv.");
+            return true;
+        }
+        Path file = fileHelper.resolveUserFile(fileName);
+        if (file == null || !Files.isRegularFile(file)) {
+            messagesHelper.sendCommandSenderMessage(sender, "&cNo file named '" + fileName + "' was found in the plugin folder.");
+            return true;
+        }
+        boolean replace = args.length > 1;
+
+        foliaHelper.runAsyncTask(() -> importFile(sender, file, fileName, format, replace));
+        return true;
+    }
+
+    private void importFile(CommandSender sender, Path file, String fileName, RegionTransferFile.Format format, boolean replace) {
+        Set<String> profiles = soundProfileHandler.getSoundProfileKeys();
+        Set<String> seenNames = new HashSet<>();
+        List<SoundRegion> staged = new ArrayList<>();
+        Map<String, String> bindings = new HashMap<>();
+        List<RegionTransferFile.Row> batch = new ArrayList<>(BATCH_SIZE);
+        int read = 0;
+        int skipped = 0;
+        int invalid = 0;
+
+        try (RegionTransferFile.Reader reader = RegionTransferFile.open(file, format)) {
+            while (true) {
+                RegionTransferFile.Row row;
+                try {
+                    row = reader.next();
+                } catch (IllegalArgumentException e) {
+                    logInvalid(fileName, reader.lineNumber(), e.getMessage(), invalid++);
+                    continue;
+                }
+                if (row == null) break;
+                read++;
+
+                // Validate against the loaded profiles and earlier lines, then stage the batch
+                if (!seenNames.add(row.name().toLowerCase())) {
+                    logInvalid(fileName, reader.lineNumber(), "duplicate region name '" + row.name() + "'", invalid++);
+                } else if (row.profile() != null && !profiles.contains(row.profile().toUpperCase())) {
+                    logInvalid(fileName, reader.lineNumber(), "unknown sound profile '" + row.profile() + "'", invalid++);
+                } else if (!replace && regionHandler.regionExists(row.name())) {
+                    skipped++;
+                } else {
+                    batch.add(row);
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    stage(batch, staged, bindings);
+                }
+                if (read % PROGRESS_INTERVAL == 0) {
+                    messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getImportProgress()
+                            .replace("{0}", String.valueOf(read)));
+                }
+            }
+            stage(batch, staged, bindings);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read " + fileName + ".", e);
+            messagesHelper.sendCommandSenderMessage(sender, "&cAn error occurred while reading " + fileName + ": " + e.getMessage());
+            return;
+        }
+        if (invalid > MAX_LOGGED_ERRORS) {
+            logger.warning("Skipped " + (invalid - MAX_LOGGED_ERRORS) + " more invalid lines in " + fileName + ".");
+        }
+
+        // Adding the regions looks their worlds up, which is only safe on the main thread
+        int skippedCount = skipped;
+        int invalidCount = invalid;
+        foliaHelper.runTaskOnMainThread(() -> {
+            regionHandler.importRegions(staged);
+            soundProfileHandler.importBindings(bindings);
+
+            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getRegionsImported()
+                    .replace("{0}", String.valueOf(staged.size()))
+                    .replace("{1}", fileName)
+                    .replace("{2}", String.valueOf(skippedCount))
+                    .replace("{3}", String.valueOf(invalidCount)));
+
+            // Players standing in the new regions start hearing them right away
+            soundHandler.reconcile();
+        });
+    }
+
+    /**
+     * Turns a batch of validated rows into regions and bindings, and empties the batch.
+     */
+    private static void stage(List<RegionTransferFile.Row> batch, List<SoundRegion> staged, Map<String, String> bindings) {
+        for (RegionTransferFile.Row row : batch) {
+            staged.add(new SoundRegion(row.name(), UNRESOLVED_WORLD, row.worldName(),
+                    Math.min(row.minX(), row.maxX()), Math.min(row.minY(), row.maxY()), Math.min(row.minZ(), row.maxZ()),
+                    Math.max(row.minX(), row.maxX()), Math.max(row.minY(), row.maxY()), Math.max(row.minZ(), row.maxZ())));
+            if (row.profile() != null) {
+                bindings.put(row.name().toLowerCase(), row.profile().toUpperCase());
+            }
+        }
+        batch.clear();
+    }
+
+    private void logInvalid(String fileName, int lineNumber, String reason, int invalidSoFar) {
+        if (invalidSoFar < MAX_LOGGED_ERRORS) {
+            logger.warning("Skipping line " + lineNumber + " of " + fileName + ": " + reason);
+        }
+    }
+
+    @Override
+    public List<String> getSubcommandCompletions(CommandSender sender, String[] args) {
+        if (args.length == 2) {
+            String input = args[1].toLowerCase();
+            try (Stream<Path> files = Files.list(fileHelper.getDataPath(""))) {
+                return files.map(path -> path.getFileName().toString())
+                        .filter(name -> RegionTransferFile.Format.forFile(name) != null)
+                        .filter(name -> name.toLowerCase().startsWith(input))
+                        .collect(Collectors.toList());
+            } catch (IOException e) {
+                return List.of();
+            }
+        }
+        if (args.length == 3 && "replace".startsWith(args[2].toLowerCase())) {
+            return List.of("replace");
+        }
+        return List.of();
+    }
+}
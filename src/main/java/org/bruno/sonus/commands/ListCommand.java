@@ -74,7 +74,7 @@ public class ListCommand implements SubCommand {
         String profileName = (profile != null) ? profile.sound() : "§cNone";
         String message = String.format("§f▪ %s §7(World: %s) §7| Sound: §f%s",
                 region.name(),
-                region.world().getName(),
+                region.worldName(),
                 profileName
         );
         sender.sendMessage(message);
@@ -92,13 +92,13 @@ public class ListCommand implements SubCommand {
         TextComponent regionComponent = new TextComponent(TextComponent.fromLegacyText(ColorHelper.parse("&#B0D0FF" + region.name())));
 
         // Calculate the center of the region for teleportation
-        Vector center = region.min().clone().add(region.max()).multiply(0.5);
+        Vector center = region.min().add(region.max()).multiply(0.5);
         String teleportCommand = String.format("/teleport %d %d %d", center.getBlockX(), center.getBlockY(), center.getBlockZ());
 
         regionComponent.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, teleportCommand));
 
         String hoverText = String.format("§bWorld: §f%s\n§bCoords: §f%d, %d, %d\n\n§aClick to teleport to the center.",
-                region.world().getName(), center.getBlockX(), center.getBlockY(), center.getBlockZ());
+                region.worldName(), center.getBlockX(), center.getBlockY(), center.getBlockZ());
         regionComponent.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new Text(TextComponent.fromLegacyText(hoverText))));
 
         message.addExtra(regionComponent);
@@ -30,13 +30,23 @@ public class ReloadCommand implements SubCommand {
         messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getReloadStart());
 
         try {
-            plugin.reload();
-            messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getReloadSuccess());
+            // Regions and profiles are loaded in the background; report once they are in use.
+            plugin.reload().whenComplete((ignored, error) -> {
+                if (error == null) {
+                    messagesHelper.sendCommandSenderMessage(sender, messagesHandler.getReloadSuccess());
+                } else {
+                    reportFailure(sender, error);
+                }
+            });
         } catch (Exception e) {
-            messagesHelper.sendCommandSenderMessage(sender, "&cAn error occurred during reload. Please check the console for details.");
-            plugin.getLogger().log(Level.SEVERE, "A critical error occurred during plugin reload.", e);
+            reportFailure(sender, e);
         }
 
         return true;
     }
+
+    private void reportFailure(CommandSender sender, Throwable error) {
+        messagesHelper.sendCommandSenderMessage(sender, "&cAn error occurred during reload. Please check the console for details.");
+        plugin.getLogger().log(Level.SEVERE, "A critical error occurred during plugin reload.", error);
+    }
 }
\ No newline at end of file
@@ -76,6 +76,10 @@ public class SonusCommand implements CommandExecutor, TabCompleter {
             if (PermissionsHelper.hasDeletePermission(sender)) completions.add("delete");
             if (PermissionsHelper.hasListPermission(sender)) completions.add("list");
             if (PermissionsHelper.hasSetPermission(sender)) completions.add("set");
+            if (PermissionsHelper.hasConvertPermission(sender)) completions.add("convert");
+            if (PermissionsHelper.hasImportPermission(sender)) completions.add("import");
+            if (PermissionsHelper.hasExportPermission(sender)) completions.add("export");
+            if (PermissionsHelper.hasCheckPermission(sender)) completions.add("check");
 
             // Return suggestions that start with what the player has already typed
             return completions.stream()
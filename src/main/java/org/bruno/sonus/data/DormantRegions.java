@@ -0,0 +1,193 @@
+package org.bruno.sonus.data;
+
+import org.bukkit.World;
+import org.bukkit.util.Vector;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The regions of a world that is not loaded, kept until the world loads.
+ * This is an immutable data object.
+ * <p>
+ * The world is referenced only by name, and the regions are packed into two flat arrays instead
+ * of one object per region. No spatial index is built for them until the world is loaded.
+ */
+public final class DormantRegions {
+    private static final int BOUNDS_PER_REGION = 6;
+
+    private final String worldName;
+    private final String[] names;
+    // minX, minY, minZ, maxX, maxY, maxZ of each region, in the order of names
+    private final double[] bounds;
+
+    private DormantRegions(String worldName, String[] names, double[] bounds) {
+        this.worldName = worldName;
+        this.names = names;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Packs regions that were active in a world that is being unloaded.
+     * @param worldName The name of the world.
+     * @param regions   The regions of that world.
+     */
+    public static DormantRegions of(String worldName, Collection<SoundRegion> regions) {
+        Builder builder = new Builder(worldName);
+        regions.forEach(builder::add);
+        return builder.build();
+    }
+
+    public String worldName() {
+        return worldName;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public Vector min(int index) {
+        int offset = index * BOUNDS_PER_REGION;
+        return new Vector(bounds[offset], bounds[offset + 1], bounds[offset + 2]);
+    }
+
+    public Vector max(int index) {
+        int offset = index * BOUNDS_PER_REGION;
+        return new Vector(bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]);
+    }
+
+    /**
+     * Finds a region by its name (case-insensitive).
+     * @return The index of the region, or -1 if there is no region with that name.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return A copy that also holds the given region, replacing one with the same name.
+     */
+    public DormantRegions with(SoundRegion region) {
+        Builder builder = new Builder(worldName);
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equalsIgnoreCase(region.name())) builder.add(names[i], bounds, i * BOUNDS_PER_REGION);
+        }
+        builder.add(region);
+        return builder.build();
+    }
+
+    /**
+     * @return A copy without the region with the given name, or null if no region is left.
+     */
+    @Nullable
+    public DormantRegions without(String name) {
+        Builder builder = new Builder(worldName);
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equalsIgnoreCase(name)) builder.add(names[i], bounds, i * BOUNDS_PER_REGION);
+        }
+        return builder.isEmpty() ? null : builder.build();
+    }
+
+    /**
+     * Turns the regions back into SoundRegions of a world that has just been loaded.
+     * @param world The loaded world, which must have the name of these regions' world.
+     */
+    public List<SoundRegion> activate(World world) {
+        return toRegions(world.getUID());
+    }
+
+    /**
+     * Turns the regions into SoundRegions without their world being loaded, such as to inspect their bounds.
+     * @param worldId The world UUID to give the regions.
+     */
+    public List<SoundRegion> toRegions(UUID worldId) {
+        List<SoundRegion> regions = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            int offset = i * BOUNDS_PER_REGION;
+            regions.add(new SoundRegion(names[i], worldId, worldName,
+                    bounds[offset], bounds[offset + 1], bounds[offset + 2],
+                    bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]));
+        }
+        return regions;
+    }
+
+    /**
+     * Collects the regions of one world that is not loaded, such as while reading a region file.
+     */
+    public static final class Builder {
+        private final String worldName;
+        private final List<String> names = new ArrayList<>();
+        private double[] bounds = new double[16 * BOUNDS_PER_REGION];
+
+        public Builder(String worldName) {
+            this.worldName = worldName;
+        }
+
+        /**
+         * Adds a region from two arbitrary corners, normalizing them into min/max bounds.
+         */
+        public Builder add(String name, Vector pos1, Vector pos2) {
+            int offset = reserve(name);
+            bounds[offset] = Math.min(pos1.getX(), pos2.getX());
+            bounds[offset + 1] = Math.min(pos1.getY(), pos2.getY());
+            bounds[offset + 2] = Math.min(pos1.getZ(), pos2.getZ());
+            bounds[offset + 3] = Math.max(pos1.getX(), pos2.getX());
+            bounds[offset + 4] = Math.max(pos1.getY(), pos2.getY());
+            bounds[offset + 5] = Math.max(pos1.getZ(), pos2.getZ());
+            return this;
+        }
+
+        /**
+         * Adds a region whose bounds are already normalized.
+         */
+        public Builder add(String name, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            int offset = reserve(name);
+            bounds[offset] = minX;
+            bounds[offset + 1] = minY;
+            bounds[offset + 2] = minZ;
+            bounds[offset + 3] = maxX;
+            bounds[offset + 4] = maxY;
+            bounds[offset + 5] = maxZ;
+            return this;
+        }
+
+        public Builder add(SoundRegion region) {
+            return add(region.name(), region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ());
+        }
+
+        private Builder add(String name, double[] source, int sourceOffset) {
+            int offset = reserve(name);
+            System.arraycopy(source, sourceOffset, bounds, offset, BOUNDS_PER_REGION);
+            return this;
+        }
+
+        private int reserve(String name) {
+            int offset = names.size() * BOUNDS_PER_REGION;
+            if (offset + BOUNDS_PER_REGION > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            names.add(name);
+            return offset;
+        }
+
+        public boolean isEmpty() {
+            return names.isEmpty();
+        }
+
+        public DormantRegions build() {
+            return new DormantRegions(worldName, names.toArray(new String[0]),
+                    Arrays.copyOf(bounds, names.size() * BOUNDS_PER_REGION));
+        }
+    }
+}
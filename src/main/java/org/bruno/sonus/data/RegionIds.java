@@ -0,0 +1,65 @@
+package org.bruno.sonus.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every region name a small, dense integer id, so the per-tick code can compare and
+ * index regions by an int instead of hashing and comparing names.
+ * <p>
+ * Names are case-insensitive, like region names everywhere else. An id is handed out the first
+ * time a name is seen and never changes or gets reused, so a region that is deleted and defined
+ * again, or reloaded from disk, keeps its id. Safe to use from any thread.
+ */
+public final class RegionIds {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Lower-case name of each id. Replaced when it grows; only written while holding the class lock.
+    private static volatile String[] names = new String[256];
+    private static int count;
+
+    private RegionIds() {}
+
+    /**
+     * Gets the id of a region name, assigning the next free id if the name is new.
+     * @param name The region name (case-insensitive).
+     * @return The id, starting at 0.
+     */
+    public static int of(String name) {
+        String key = name.toLowerCase();
+        Integer id = ids.get(key);
+        if (id != null) return id;
+
+        synchronized (RegionIds.class) {
+            id = ids.get(key);
+            if (id != null) return id;
+
+            int next = count++;
+            if (next == names.length) {
+                names = Arrays.copyOf(names, next * 2);
+            }
+            names[next] = key;
+            // Published last, so a thread that finds the id also finds the name
+            ids.put(key, next);
+            return next;
+        }
+    }
+
+    /**
+     * Gets the id of a region name without assigning one.
+     * @param name The region name (case-insensitive).
+     * @return The id, or -1 if the name was never seen.
+     */
+    public static int find(String name) {
+        Integer id = ids.get(name.toLowerCase());
+        return (id != null) ? id : -1;
+    }
+
+    /**
+     * @param id An id returned by {@link #of(String)}.
+     * @return The lower-case region name of the id.
+     */
+    public static String name(int id) {
+        return names[id];
+    }
+}
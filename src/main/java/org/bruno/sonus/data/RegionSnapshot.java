@@ -0,0 +1,265 @@
+package org.bruno.sonus.data;
+
+import org.bruno.sonus.utils.PersistentMap;
+import org.bruno.sonus.utils.RegionTree;
+import org.bukkit.World;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * A consistent, point-in-time view of every defined region and the per-world spatial indexes.
+ * This is an immutable data object, so it can be read from any thread without locking.
+ * <p>
+ * Changes never modify a snapshot: they build the next one, with an epoch one higher, which
+ * is then published in a single step. The maps are persistent, so the next snapshot only copies
+ * the entries a change touches and shares everything else with this one.
+ *
+ * @param epoch        The version of this snapshot. Increases by one with every published change.
+ * @param regions      The regions keyed by lower-case name.
+ * @param worldIndexes One spatial index per world, keyed by world UUID. Worlds without regions have no entry.
+ * @param dormantWorlds The regions of worlds that are not loaded, keyed by world name. They are in neither
+ *                      of the other maps, and move there when their world is loaded.
+ */
+public record RegionSnapshot(
+        long epoch,
+        PersistentMap<String, SoundRegion> regions,
+        PersistentMap<UUID, RegionTree> worldIndexes,
+        PersistentMap<String, DormantRegions> dormantWorlds
+) {
+    public static final RegionSnapshot EMPTY = new RegionSnapshot(0, PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+
+    /**
+     * Builds a snapshot from scratch, bulk-loading one spatial index per world.
+     * @param epoch   The epoch of the new snapshot.
+     * @param regions The regions to include. If two share a name (case-insensitive), the last one wins.
+     */
+    public static RegionSnapshot of(long epoch, Collection<SoundRegion> regions) {
+        return of(epoch, regions, List.of());
+    }
+
+    /**
+     * Builds a snapshot from scratch, bulk-loading one spatial index per loaded world.
+     * @param epoch   The epoch of the new snapshot.
+     * @param regions The regions of loaded worlds. If two share a name (case-insensitive), the last one wins.
+     * @param dormant The regions of worlds that are not loaded, one entry per world.
+     */
+    public static RegionSnapshot of(long epoch, Collection<SoundRegion> regions, Collection<DormantRegions> dormant) {
+        Map<String, SoundRegion> byName = new HashMap<>();
+        for (SoundRegion region : regions) {
+            byName.put(region.name().toLowerCase(), region);
+        }
+
+        Map<UUID, List<SoundRegion>> byWorld = new HashMap<>();
+        for (SoundRegion region : byName.values()) {
+            byWorld.computeIfAbsent(region.worldId(), id -> new ArrayList<>()).add(region);
+        }
+
+        Map<UUID, RegionTree> indexes;
+        if (byName.size() >= RegionTree.PARALLEL_THRESHOLD) {
+            // Worlds are indexed independently, so large sets build them side by side.
+            indexes = byWorld.entrySet().parallelStream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> RegionTree.bulkLoad(entry.getValue())));
+        } else {
+            indexes = new HashMap<>();
+            byWorld.forEach((worldId, worldRegions) -> indexes.put(worldId, RegionTree.bulkLoad(worldRegions)));
+        }
+
+        Map<String, DormantRegions> dormantWorlds = new HashMap<>();
+        for (DormantRegions world : dormant) {
+            dormantWorlds.put(world.worldName(), world);
+        }
+        return new RegionSnapshot(epoch, PersistentMap.copyOf(byName), PersistentMap.copyOf(indexes), PersistentMap.copyOf(dormantWorlds));
+    }
+
+    /**
+     * @return The next snapshot, with the given region added to the maps and its world's index.
+     * A region with the same name (case-insensitive) is replaced.
+     */
+    public RegionSnapshot with(SoundRegion region) {
+        String key = region.name().toLowerCase();
+        SoundRegion replaced = regions.get(key);
+
+        PersistentMap<UUID, RegionTree> nextIndexes = (replaced != null) ? removeFromIndex(worldIndexes, replaced) : worldIndexes;
+        RegionTree tree = nextIndexes.getOrDefault(region.worldId(), RegionTree.EMPTY);
+        nextIndexes = nextIndexes.plus(region.worldId(), tree.insert(region));
+        return new RegionSnapshot(epoch + 1, regions.plus(key, region), nextIndexes, withoutDormant(dormantWorlds, region.name()));
+    }
+
+    /**
+     * @return The next snapshot, with the given region removed from the maps and its world's index.
+     */
+    public RegionSnapshot without(SoundRegion region) {
+        return new RegionSnapshot(epoch + 1, regions.minus(region.name().toLowerCase()),
+                removeFromIndex(worldIndexes, region), dormantWorlds);
+    }
+
+    /**
+     * @return The next snapshot, with the given region kept dormant until its world is loaded.
+     * A region with the same name (case-insensitive) is replaced.
+     */
+    public RegionSnapshot withDormant(SoundRegion region) {
+        SoundRegion active = region(region.name());
+        RegionSnapshot base = (active != null) ? without(active) : this;
+
+        PersistentMap<String, DormantRegions> nextDormant = withoutDormant(base.dormantWorlds, region.name());
+        DormantRegions world = nextDormant.get(region.worldName());
+        nextDormant = nextDormant.plus(region.worldName(), (world == null)
+                ? new DormantRegions.Builder(region.worldName()).add(region).build()
+                : world.with(region));
+        return new RegionSnapshot(epoch + 1, base.regions, base.worldIndexes, nextDormant);
+    }
+
+    /**
+     * @return The next snapshot, without the dormant region with the given name.
+     */
+    public RegionSnapshot withoutDormant(String name) {
+        return new RegionSnapshot(epoch + 1, regions, worldIndexes, withoutDormant(dormantWorlds, name));
+    }
+
+    private static PersistentMap<String, DormantRegions> withoutDormant(PersistentMap<String, DormantRegions> dormantWorlds, String name) {
+        for (DormantRegions world : dormantWorlds.values()) {
+            if (world.indexOf(name) < 0) continue;
+
+            DormantRegions remaining = world.without(name);
+            return (remaining == null)
+                    ? dormantWorlds.minus(world.worldName())
+                    : dormantWorlds.plus(world.worldName(), remaining);
+        }
+        return dormantWorlds;
+    }
+
+    /**
+     * @return The next snapshot, with the dormant regions of a world that has just been loaded
+     * moved into the maps and indexed, or this snapshot if the world has no dormant regions.
+     */
+    public RegionSnapshot activate(World world) {
+        DormantRegions dormant = dormantWorlds.get(world.getName());
+        if (dormant == null) return this;
+
+        List<SoundRegion> activated = dormant.activate(world);
+        PersistentMap<String, SoundRegion> nextRegions = regions;
+        for (SoundRegion region : activated) {
+            nextRegions = nextRegions.plus(region.name().toLowerCase(), region);
+        }
+
+        RegionTree existing = worldIndexes.get(world.getUID());
+        if (existing == null) {
+            existing = RegionTree.bulkLoad(activated);
+        } else {
+            for (SoundRegion region : activated) existing = existing.insert(region);
+        }
+        return new RegionSnapshot(epoch + 1, nextRegions, worldIndexes.plus(world.getUID(), existing),
+                dormantWorlds.minus(world.getName()));
+    }
+
+    /**
+     * @return The next snapshot, with the regions of a world that is being unloaded moved out of the
+     * maps and its index dropped, or this snapshot if the world has no regions.
+     */
+    public RegionSnapshot deactivate(World world) {
+        if (!worldIndexes.containsKey(world.getUID())) return this;
+
+        List<SoundRegion> deactivated = new ArrayList<>();
+        PersistentMap<String, SoundRegion> nextRegions = regions;
+        for (Map.Entry<String, SoundRegion> entry : regions.entrySet()) {
+            if (entry.getValue().worldId().equals(world.getUID())) {
+                deactivated.add(entry.getValue());
+                nextRegions = nextRegions.minus(entry.getKey());
+            }
+        }
+        return new RegionSnapshot(epoch + 1, nextRegions, worldIndexes.minus(world.getUID()),
+                dormantWorlds.plus(world.getName(), DormantRegions.of(world.getName(), deactivated)));
+    }
+
+    private static PersistentMap<UUID, RegionTree> removeFromIndex(PersistentMap<UUID, RegionTree> indexes, SoundRegion region) {
+        RegionTree tree = indexes.get(region.worldId());
+        if (tree == null) return indexes;
+
+        RegionTree updated = tree.remove(region);
+        return updated.isEmpty() ? indexes.minus(region.worldId()) : indexes.plus(region.worldId(), updated);
+    }
+
+    /**
+     * Gets a region by its name (case-insensitive).
+     */
+    @Nullable
+    public SoundRegion region(String name) {
+        return regions.get(name.toLowerCase());
+    }
+
+    /**
+     * Gets the stored name of a region in a world that is not loaded (case-insensitive lookup).
+     * @return The name as stored, or null if no dormant region has that name.
+     */
+    @Nullable
+    public String dormantRegionName(String name) {
+        for (DormantRegions world : dormantWorlds.values()) {
+            int index = world.indexOf(name);
+            if (index >= 0) return world.name(index);
+        }
+        return null;
+    }
+
+    /**
+     * @return true if a region with this name exists, whether its world is loaded or not.
+     */
+    public boolean contains(String name) {
+        return region(name) != null || dormantRegionName(name) != null;
+    }
+
+    /**
+     * Finds the most specific region containing a point, without allocating.
+     * @return The region, or null if the point is not in any region of that world.
+     */
+    @Nullable
+    public SoundRegion regionAt(UUID worldId, double x, double y, double z) {
+        RegionTree tree = worldIndexes.get(worldId);
+        return (tree != null) ? tree.findMostSpecific(x, y, z) : null;
+    }
+
+    /**
+     * Finds the most specific region containing a point, and how far the point can move before
+     * that may change, without allocating. See {@link RegionTree#lookup(double, double, double, double, RegionTree.Lookup)}.
+     * @param maxDistance The furthest distance searched for a region boundary.
+     * @param out         Receives the region and the distance to the nearest region boundary.
+     * @return The region, or null if the point is not in any region of that world.
+     */
+    @Nullable
+    public SoundRegion regionAt(UUID worldId, double x, double y, double z, double maxDistance, RegionTree.Lookup out) {
+        worldIndexes.getOrDefault(worldId, RegionTree.EMPTY).lookup(x, y, z, maxDistance, out);
+        return out.region();
+    }
+
+    /**
+     * @return The index of a world, or null if the world has no regions.
+     */
+    @Nullable
+    public RegionTree index(UUID worldId) {
+        return worldIndexes.get(worldId);
+    }
+
+    /**
+     * @return The number of regions, including those in worlds that are not loaded.
+     */
+    public int size() {
+        return regions.size() + dormantSize();
+    }
+
+    /**
+     * @return The number of regions in worlds that are not loaded.
+     */
+    public int dormantSize() {
+        int size = 0;
+        for (DormantRegions world : dormantWorlds.values()) {
+            size += world.size();
+        }
+        return size;
+    }
+}
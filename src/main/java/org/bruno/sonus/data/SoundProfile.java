@@ -1,10 +1,20 @@
 package org.bruno.sonus.data;
 
+import net.kyori.adventure.key.InvalidKeyException;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.sound.Sound;
+import net.kyori.adventure.sound.SoundStop;
 import org.bukkit.SoundCategory;
 
 /**
  * Represents a single sound profile defined in the configuration.
  * This is an immutable data object.
+ * <p>
+ * The sound is compiled once when the profile is loaded, so playing and stopping it
+ * never parses the sound key again.
+ *
+ * @param playSound The sound to send to players, with its parsed key, source, volume and pitch.
+ * @param stopSound Stops this sound on its source.
  */
 public record SoundProfile(
         String sound,
@@ -12,5 +22,24 @@ public record SoundProfile(
         float volume,
         float pitch,
         boolean loop,
-        int loopTime // in seconds
-) {}
\ No newline at end of file
+        int loopTime, // in seconds
+        Sound playSound,
+        SoundStop stopSound
+) {
+    /**
+     * Creates a profile, parsing its sound key.
+     * @param sound The sound key, such as {@code minecraft:ambient.cave}. Keys without a namespace use {@code minecraft}.
+     * @throws IllegalArgumentException If the sound key is not a valid key.
+     */
+    public static SoundProfile compile(String sound, SoundCategory source, float volume, float pitch, boolean loop, int loopTime) {
+        Key key;
+        try {
+            key = Key.key(sound);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("'" + sound + "' is not a valid sound key.", e);
+        }
+        Sound.Source soundSource = source.soundSource();
+        return new SoundProfile(sound, source, volume, pitch, loop, loopTime,
+                Sound.sound(key, soundSource, volume, pitch), SoundStop.namedOnSource(key, soundSource));
+    }
+}
@@ -4,25 +4,114 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.util.Vector;
 
+import java.util.UUID;
+
 /**
  * Represents a cuboid (box-shaped) region in the world.
  * This is an immutable data object.
+ * <p>
+ * The bounds are stored as primitive doubles and the world by its UUID, so containment
+ * checks on the hot path never allocate or touch the {@link World} object.
+ *
+ * @param id The interned id of the region's name, see {@link RegionIds}.
  */
 public record SoundRegion(
+        int id,
         String name,
-        World world,
-        Vector min, // The minimum corner of the cuboid
-        Vector max  // The maximum corner of the cuboid
+        UUID worldId,
+        String worldName,
+        double minX, double minY, double minZ, // The minimum corner of the cuboid
+        double maxX, double maxY, double maxZ  // The maximum corner of the cuboid
 ) {
+    /**
+     * Creates a region from normalized bounds, interning its name.
+     */
+    public SoundRegion(String name, UUID worldId, String worldName,
+                       double minX, double minY, double minZ,
+                       double maxX, double maxY, double maxZ) {
+        this(RegionIds.of(name), name, worldId, worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Creates a region from two arbitrary corners, normalizing them into min/max bounds.
+     */
+    public static SoundRegion of(String name, World world, Vector pos1, Vector pos2) {
+        return new SoundRegion(name, world.getUID(), world.getName(),
+                Math.min(pos1.getX(), pos2.getX()), Math.min(pos1.getY(), pos2.getY()), Math.min(pos1.getZ(), pos2.getZ()),
+                Math.max(pos1.getX(), pos2.getX()), Math.max(pos1.getY(), pos2.getY()), Math.max(pos1.getZ(), pos2.getZ()));
+    }
+
     /**
      * Checks if a given location is inside this region.
      * @param location The location to check.
      * @return true if the location is within the bounds of this region.
      */
     public boolean contains(Location location) {
-        if (!location.getWorld().equals(this.world)) {
-            return false;
-        }
-        return location.toVector().isInAABB(this.min, this.max);
+        World world = location.getWorld();
+        return world != null && contains(world.getUID(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Checks if a given point is inside this region without allocating.
+     * @return true if the point is in the same world and within the bounds of this region.
+     */
+    public boolean contains(UUID worldId, double x, double y, double z) {
+        return this.worldId.equals(worldId) && contains(x, y, z);
+    }
+
+    /**
+     * Checks if a given point is within the bounds of this region, ignoring the world.
+     */
+    public boolean contains(double x, double y, double z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Checks if a given point is within the bounds of this region grown by a margin on every side, ignoring the world.
+     * @param margin The number of blocks added to each side.
+     */
+    public boolean contains(double x, double y, double z, double margin) {
+        return x >= minX - margin && x <= maxX + margin
+                && y >= minY - margin && y <= maxY + margin
+                && z >= minZ - margin && z <= maxZ + margin;
+    }
+
+    /**
+     * Gets how far a point is from the surface of this region, ignoring the world: the distance
+     * needed to leave the region if the point is inside, or to enter it if the point is outside.
+     */
+    public double distanceToBoundary(double x, double y, double z) {
+        if (contains(x, y, z)) return distanceToExit(x, y, z, 0);
+
+        double dx = Math.max(0, Math.max(minX - x, x - maxX));
+        double dy = Math.max(0, Math.max(minY - y, y - maxY));
+        double dz = Math.max(0, Math.max(minZ - z, z - maxZ));
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Gets how far a point inside this region grown by a margin is from leaving it, ignoring the world.
+     * @param margin The number of blocks added to each side.
+     */
+    public double distanceToExit(double x, double y, double z, double margin) {
+        double toX = Math.min(x - (minX - margin), (maxX + margin) - x);
+        double toY = Math.min(y - (minY - margin), (maxY + margin) - y);
+        double toZ = Math.min(z - (minZ - margin), (maxZ + margin) - z);
+        return Math.min(toX, Math.min(toY, toZ));
+    }
+
+    /**
+     * @return The number of blocks covered by this region.
+     */
+    public double volume() {
+        return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    public Vector min() {
+        return new Vector(minX, minY, minZ);
+    }
+
+    public Vector max() {
+        return new Vector(maxX, maxY, maxZ);
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package org.bruno.sonus.handlers;
 
+import org.bruno.sonus.utils.RegionTrackingMode;
+import org.bruno.sonus.utils.StorageMode;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.logging.Logger;
@@ -13,6 +15,22 @@ public class ConfigHandler {
     private boolean isDebugModeEnabled;
     private boolean isCheckForUpdatesEnabled;
 
+    // Region tracking settings
+    private RegionTrackingMode regionTrackingMode;
+    private long pollingInterval;
+    private long safetySweepInterval;
+    private boolean isAsyncResolutionEnabled;
+    private int resolverThreads;
+    private double exitMargin;
+    private long exitGracePeriod;
+
+    // Storage settings
+    private StorageMode storageMode;
+
+    // Auto reload settings
+    private boolean isAutoReloadEnabled;
+    private long autoReloadDelay;
+
     public ConfigHandler(FileConfiguration fileConfiguration, Logger logger) {
         this.fileConfiguration = fileConfiguration;
         this.logger = logger;
@@ -26,6 +44,31 @@ public class ConfigHandler {
     private void loadConfigVariables() {
         this.isDebugModeEnabled = fileConfiguration.getBoolean("general.debug-mode", false);
         this.isCheckForUpdatesEnabled = fileConfiguration.getBoolean("general.check-for-updates", true);
+
+        String mode = fileConfiguration.getString("region-tracking.mode", "POLLING");
+        try {
+            this.regionTrackingMode = RegionTrackingMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid region-tracking.mode '" + mode + "'. Falling back to POLLING.");
+            this.regionTrackingMode = RegionTrackingMode.POLLING;
+        }
+        this.pollingInterval = Math.max(1, fileConfiguration.getInt("region-tracking.polling-interval", 10));
+        this.safetySweepInterval = Math.max(1, fileConfiguration.getInt("region-tracking.safety-sweep-interval", 100));
+        this.isAsyncResolutionEnabled = fileConfiguration.getBoolean("region-tracking.async-resolution", false);
+        this.resolverThreads = Math.max(1, fileConfiguration.getInt("region-tracking.resolver-threads", 2));
+        this.exitMargin = Math.max(0, fileConfiguration.getDouble("region-tracking.exit-margin", 0.0));
+        this.exitGracePeriod = Math.max(0, fileConfiguration.getInt("region-tracking.exit-grace-period", 0));
+
+        String storage = fileConfiguration.getString("storage.mode", "YAML");
+        try {
+            this.storageMode = StorageMode.valueOf(storage.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid storage.mode '" + storage + "'. Falling back to YAML.");
+            this.storageMode = StorageMode.YAML;
+        }
+
+        this.isAutoReloadEnabled = fileConfiguration.getBoolean("auto-reload.enabled", false);
+        this.autoReloadDelay = Math.max(1, fileConfiguration.getInt("auto-reload.delay", 20));
     }
 
     /**
@@ -41,4 +84,14 @@ public class ConfigHandler {
 
     public boolean isDebugModeEnabled() { return isDebugModeEnabled; }
     public boolean isCheckForUpdatesEnabled() { return isCheckForUpdatesEnabled; }
+    public RegionTrackingMode getRegionTrackingMode() { return regionTrackingMode; }
+    public long getPollingInterval() { return pollingInterval; }
+    public long getSafetySweepInterval() { return safetySweepInterval; }
+    public boolean isAsyncResolutionEnabled() { return isAsyncResolutionEnabled; }
+    public int getResolverThreads() { return resolverThreads; }
+    public double getExitMargin() { return exitMargin; }
+    public long getExitGracePeriod() { return exitGracePeriod; }
+    public StorageMode getStorageMode() { return storageMode; }
+    public boolean isAutoReloadEnabled() { return isAutoReloadEnabled; }
+    public long getAutoReloadDelay() { return autoReloadDelay; }
 }
@@ -0,0 +1,134 @@
+package org.bruno.sonus.handlers;
+
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.utils.Constants;
+import org.bruno.sonus.utils.FileWatcher;
+import org.bruno.sonus.utils.StorageMode;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reloads regions.yml, sounds.yml or messages.yml on its own as soon as it is changed on disk,
+ * for servers whose files are deployed by another program.
+ * <p>
+ * Only the file that changed is read back, and only if its contents differ from what Sonus last
+ * read or wrote itself. It is parsed off the main thread; only the swap to the new state, and
+ * restarting the sounds of players it affects, happen on the main thread.
+ */
+public class FileWatchHandler {
+    private final FileHelper fileHelper;
+    private final ConfigHandler configHandler;
+    private final RegionHandler regionHandler;
+    private final SoundProfileHandler soundProfileHandler;
+    private final SoundHandler soundHandler;
+    private final MessagesHandler messagesHandler;
+    private final MessagesHelper messagesHelper;
+    private final FoliaHelper foliaHelper;
+    private final Logger logger;
+
+    private FileWatcher watcher;
+
+    public FileWatchHandler(FileHelper fileHelper, ConfigHandler configHandler, RegionHandler regionHandler,
+                            SoundProfileHandler soundProfileHandler, SoundHandler soundHandler, MessagesHandler messagesHandler,
+                            MessagesHelper messagesHelper, FoliaHelper foliaHelper, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.configHandler = configHandler;
+        this.regionHandler = regionHandler;
+        this.soundProfileHandler = soundProfileHandler;
+        this.soundHandler = soundHandler;
+        this.messagesHandler = messagesHandler;
+        this.messagesHelper = messagesHelper;
+        this.foliaHelper = foliaHelper;
+        this.logger = logger;
+    }
+
+    /**
+     * Starts watching the data folder, if auto-reload is enabled.
+     */
+    public void start() {
+        if (!configHandler.isAutoReloadEnabled()) return;
+
+        Set<String> files = new HashSet<>();
+        files.add(Constants.Files.MESSAGES_FILE);
+        switch (configHandler.getStorageMode()) {
+            case YAML -> {
+                files.add(Constants.Files.REGIONS_FILE);
+                files.add(Constants.Files.SOUNDS_FILE);
+            }
+            // regions.yml is not read in these modes; sounds.yml still holds the profiles
+            case BINARY, SQLITE -> files.add(Constants.Files.SOUNDS_FILE);
+            // Reading the files back would drop changes that are only in the journal so far
+            case JOURNAL -> logger.info("regions.yml and sounds.yml are not reloaded automatically in JOURNAL storage mode.");
+        }
+
+        long delayMillis = configHandler.getAutoReloadDelay() * 50; // 1 tick = 50 ms
+        FileWatcher newWatcher = new FileWatcher(fileHelper.getDataPath(""), files, delayMillis, this::onFileChanged, logger);
+        try {
+            newWatcher.start();
+            this.watcher = newWatcher;
+        } catch (IOException e) {
+            newWatcher.stop();
+            logger.log(Level.WARNING, "Could not watch the plugin folder for changes. Auto-reload is disabled.", e);
+        }
+    }
+
+    /**
+     * Stops watching the data folder.
+     */
+    public void shutdown() {
+        if (watcher == null) return;
+        watcher.stop();
+        watcher = null;
+    }
+
+    /**
+     * Reads a changed file back and applies it. Runs on the watcher thread.
+     */
+    private void onFileChanged(String fileName) {
+        FileConfiguration config = fileHelper.reloadIfChanged(fileName);
+        if (config == null) return; // Unchanged, such as a file Sonus just saved itself
+
+        switch (fileName) {
+            case Constants.Files.REGIONS_FILE -> {
+                RegionSnapshot regions = regionHandler.prepareSnapshot();
+                foliaHelper.runTaskOnMainThread(() -> {
+                    try {
+                        regionHandler.publish(regions);
+                    } catch (IllegalStateException e) {
+                        logger.warning(e.getMessage());
+                        return;
+                    }
+                    soundHandler.reconcile();
+                });
+            }
+            case Constants.Files.SOUNDS_FILE -> {
+                SoundProfileHandler.ProfileData profiles = soundProfileHandler.readProfiles();
+                foliaHelper.runTaskOnMainThread(() -> {
+                    try {
+                        soundProfileHandler.publish(profiles);
+                    } catch (IllegalStateException e) {
+                        logger.warning(e.getMessage());
+                        return;
+                    }
+                    soundHandler.reconcile();
+                });
+            }
+            case Constants.Files.MESSAGES_FILE -> foliaHelper.runTaskOnMainThread(() -> {
+                messagesHandler.reload(config);
+                messagesHelper.setPrefix(messagesHandler.getPrefix());
+            });
+            default -> {
+                return;
+            }
+        }
+        logger.info("Reloaded " + fileName + " after it was changed on disk.");
+    }
+}
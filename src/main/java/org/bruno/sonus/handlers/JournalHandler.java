@@ -0,0 +1,98 @@
+package org.bruno.sonus.handlers;
+
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.utils.Constants;
+import org.bruno.sonus.utils.RegionJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.logging.Logger;
+
+/**
+ * Persists region and sound assignment changes through a {@link RegionJournal}.
+ * <p>
+ * The region storage (regions.yml and sounds.yml) acts as the snapshot: on startup it is loaded
+ * as usual, then the journal is replayed on top of it. Compaction writes the full state back to
+ * the storage and empties the journal.
+ */
+public class JournalHandler {
+    private final FileHelper fileHelper;
+    private final RegionStorage storage;
+    private final RegionHandler regionHandler;
+    private final SoundProfileHandler soundProfileHandler;
+    private final Logger logger;
+
+    private RegionJournal journal;
+
+    public JournalHandler(FileHelper fileHelper, RegionStorage storage, RegionHandler regionHandler, SoundProfileHandler soundProfileHandler, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.storage = storage;
+        this.regionHandler = regionHandler;
+        this.soundProfileHandler = soundProfileHandler;
+        this.logger = logger;
+    }
+
+    /**
+     * Replays the journal onto the loaded regions and sound assignments, then routes every
+     * further change through it. Must be called after both handlers have loaded their files.
+     * @throws IOException If the journal cannot be read or opened.
+     */
+    public void start() throws IOException {
+        this.journal = new RegionJournal(fileHelper.getDataPath(Constants.Files.REGIONS_JOURNAL_FILE), logger);
+
+        int replayed = journal.replay(this::apply);
+        journal.open(this::writeSnapshot);
+
+        regionHandler.setJournal(journal);
+        soundProfileHandler.setJournal(journal);
+
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " changes from the region journal.");
+            journal.compact();
+        }
+    }
+
+    /**
+     * Writes every pending change, compacts the journal and closes it.
+     */
+    public void shutdown() {
+        if (journal == null) return;
+
+        regionHandler.setJournal(null);
+        soundProfileHandler.setJournal(null);
+        journal.close();
+        journal = null;
+    }
+
+    /**
+     * Writes every change in the journal to regions.yml and sounds.yml, waiting until it is done.
+     * Called before those files are reloaded, so no journaled change is dropped.
+     * @return true if the files hold every change, false if they could not be written.
+     */
+    public boolean checkpoint() {
+        return journal == null || journal.checkpoint();
+    }
+
+    private void apply(RegionJournal.Entry entry) {
+        if (entry instanceof RegionJournal.Define define) {
+            regionHandler.restoreRegion(define.region());
+        } else if (entry instanceof RegionJournal.Delete delete) {
+            regionHandler.restoreDeletion(delete.regionName());
+        } else if (entry instanceof RegionJournal.SetSound setSound) {
+            soundProfileHandler.restoreRegionSound(setSound.regionName(), setSound.profileName());
+        }
+    }
+
+    /**
+     * Writes the full current state to the storage. Runs on the journal thread.
+     */
+    private void writeSnapshot() {
+        try {
+            storage.saveAll(regionHandler.getSnapshot(), soundProfileHandler.getBindings());
+        } catch (IOException e) {
+            // Keeps the journal intact, since the snapshot files may not hold every change yet.
+            throw new UncheckedIOException(e);
+        }
+    }
+}
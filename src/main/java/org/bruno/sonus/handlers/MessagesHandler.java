@@ -19,6 +19,13 @@ public final class MessagesHandler {
     private String wandGiven;
     private String pos1Set;
     private String pos2Set;
+    private String regionsConverted;
+    private String importProgress;
+    private String regionsImported;
+    private String exportProgress;
+    private String regionsExported;
+    private String noOverlaps;
+    private String overlapsFound;
 
     public MessagesHandler(FileConfiguration fileConfiguration) {
         this.fileConfiguration = fileConfiguration;
@@ -54,6 +61,13 @@ public final class MessagesHandler {
         this.wandGiven = fileConfiguration.getString("wand-given", "&aYou have been given the region selection wand.");
         this.pos1Set = fileConfiguration.getString("pos1-set", "&7Position 1 set. Now select the second corner.");
         this.pos2Set = fileConfiguration.getString("pos2-set", "&7Position 2 set. Use &b/so define <name> &7to create the region.");
+        this.regionsConverted = fileConfiguration.getString("regions-converted", "&aWrote {0} regions to {1}. &7Set &bstorage.mode &7to match and restart to use it.");
+        this.importProgress = fileConfiguration.getString("import-progress", "&7Importing... {0} lines read so far.");
+        this.regionsImported = fileConfiguration.getString("regions-imported", "&aImported {0} regions from {1}. &7Skipped {2} existing regions and {3} invalid lines (see the console).");
+        this.exportProgress = fileConfiguration.getString("export-progress", "&7Exporting... {0} of {1} regions written.");
+        this.regionsExported = fileConfiguration.getString("regions-exported", "&aExported {0} regions to {1}.");
+        this.noOverlaps = fileConfiguration.getString("no-overlaps", "&aChecked {0} regions. None of them overlap.");
+        this.overlapsFound = fileConfiguration.getString("overlaps-found", "&eChecked {0} regions: &c{1} overlapping pairs&e, {2} nested pairs.");
     }
 
     public String getPrefix() { return prefix; }
@@ -68,4 +82,11 @@ public final class MessagesHandler {
     public String getWandGiven() { return wandGiven; }
     public String getPos1Set() { return pos1Set; }
     public String getPos2Set() { return pos2Set; }
+    public String getRegionsConverted() { return regionsConverted; }
+    public String getImportProgress() { return importProgress; }
+    public String getRegionsImported() { return regionsImported; }
+    public String getExportProgress() { return exportProgress; }
+    public String getRegionsExported() { return regionsExported; }
+    public String getNoOverlaps() { return noOverlaps; }
+    public String getOverlapsFound() { return overlapsFound; }
 }
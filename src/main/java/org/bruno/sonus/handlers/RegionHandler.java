@@ -1,96 +1,151 @@
 package org.bruno.sonus.handlers;
 
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
 import org.bruno.sonus.data.SoundRegion;
-import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.utils.RegionJournal;
+import org.bruno.sonus.utils.RegionTree;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.util.Vector;
 import org.bukkit.Location;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
 
 public class RegionHandler {
-    private final FileHelper fileHelper;
+    private final RegionStorage storage;
     private final Logger logger;
 
-    private final Map<String, SoundRegion> regions = new ConcurrentHashMap<>();
+    // The regions and their spatial indexes, replaced as a whole on every change. Readers on any
+    // thread just read this reference; writers are serialized on writeLock and publish the next snapshot.
+    private volatile RegionSnapshot snapshot = RegionSnapshot.EMPTY;
+    private final Object writeLock = new Object();
 
-    public RegionHandler(FileHelper fileHelper, Logger logger) {
-        this.fileHelper = fileHelper;
-        this.logger = logger;
+    // The latest changes, kept so a reload that was read from disk while they were made can replay
+    // them instead of losing them. Only touched while holding writeLock.
+    private static final int MAX_RECENT_CHANGES = 1024;
+    private final Deque<Change> recentChanges = new ArrayDeque<>();
+    // The epoch of the newest change that was dropped from recentChanges.
+    private long forgottenEpoch = -1;
+
+    /**
+     * A change that was applied to the live regions.
+     * @param epoch  The epoch of the snapshot it produced.
+     * @param replay Applies the same change to another snapshot.
+     */
+    private record Change(long epoch, UnaryOperator<RegionSnapshot> replay) {}
 
-        loadRegions();
+    // When set, changes are appended to the journal instead of being handed to the storage.
+    @Nullable
+    private volatile RegionJournal journal;
+
+    public RegionHandler(RegionStorage storage, Logger logger) {
+        this.storage = storage;
+        this.logger = logger;
     }
 
     /**
-     * Loads all regions from the regions.yml file into the cache.
+     * Loads all regions from the storage into the cache.
+     * The new regions are built aside and published at once, so readers never see a partially
+     * loaded or empty set of regions while this runs.
      */
     public void loadRegions() {
-        regions.clear();
-        ConfigurationSection regionsSection = fileHelper.getRegionsConfig().getConfigurationSection("regions");
-        if (regionsSection == null) {
-            logger.info("No regions found in regions.yml. Ready to create new ones!");
-            return;
+        synchronized (writeLock) {
+            publish(prepareSnapshot());
         }
+    }
 
-        for (String regionName : regionsSection.getKeys(false)) {
-            String path = "regions." + regionName;
-            String worldName = fileHelper.getRegionsConfig().getString(path + ".world");
+    /**
+     * Reads the regions from the storage, without publishing them. Does not touch the live regions
+     * or look up any world, so it can run off the main thread during a reload.
+     * @return The loaded regions, all dormant until {@link #publish(RegionSnapshot)} activates their
+     * worlds. Its epoch is the epoch of the live regions when reading started.
+     */
+    public RegionSnapshot prepareSnapshot() {
+        long startEpoch = snapshot.epoch();
+        try {
+            RegionSnapshot loaded = storage.loadRegions();
+            return new RegionSnapshot(startEpoch, loaded.regions(), loaded.worldIndexes(), loaded.dormantWorlds());
+        } catch (IOException e) {
+            // Refuse to start with no regions, as the next save would overwrite the stored ones.
+            throw new IllegalStateException("Could not read " + storage.name() + ": " + e.getMessage(), e);
+        }
+    }
 
-            if (worldName == null || worldName.isEmpty()) {
-                logger.warning("Could not load region '" + regionName + "' because its world is not specified.");
-                continue;
+    /**
+     * Replaces the live regions with ones built by {@link #prepareSnapshot()}, in a single step.
+     * The regions of loaded worlds are indexed here, as worlds may only be looked up on the main thread.
+     * Changes made to the live regions after reading started are applied again on top, so they are not lost.
+     * @param prepared The regions to publish.
+     * @throws IllegalStateException If so many changes were made since reading started that they can no longer be replayed.
+     */
+    public void publish(RegionSnapshot prepared) {
+        synchronized (writeLock) {
+            if (prepared.epoch() < forgottenEpoch) {
+                throw new IllegalStateException("Too many regions were changed while " + storage.name() + " was being read. Please reload again.");
             }
 
-            World world = Bukkit.getWorld(worldName);
-            if (world == null) {
-                logger.warning("Could not load region '" + regionName + "' because the world '" + worldName + "' is not loaded or does not exist.");
-                continue;
+            // Activated before the replay, so each world's index is bulk-loaded instead of built up one region at a time
+            RegionSnapshot next = activateLoadedWorlds(prepared);
+            for (Change change : recentChanges) {
+                if (change.epoch() > prepared.epoch()) next = change.replay().apply(next);
             }
-
-            // Reverted to the simpler getVector() logic
-            Vector pos1 = fileHelper.getRegionsConfig().getVector(path + ".pos1");
-            Vector pos2 = fileHelper.getRegionsConfig().getVector(path + ".pos2");
-
-            if (pos1 == null || pos2 == null) {
-                logger.warning("Could not load region '" + regionName + "' due to invalid position data in regions.yml.");
-                continue;
+            // A replayed change may have kept a region dormant whose world has loaded since
+            next = activateLoadedWorlds(next);
+            next = new RegionSnapshot(snapshot.epoch() + 1, next.regions(), next.worldIndexes(), next.dormantWorlds());
+            this.snapshot = next;
+            logger.info("Successfully loaded " + next.size() + " sound regions.");
+            for (DormantRegions world : next.dormantWorlds().values()) {
+                logger.info("Keeping " + world.size() + " regions of world '" + world.worldName() + "' until it is loaded.");
             }
-
-            Vector min = Vector.getMinimum(pos1, pos2);
-            Vector max = Vector.getMaximum(pos1, pos2);
-            regions.put(regionName.toLowerCase(), new SoundRegion(regionName, world, min, max));
-            logger.info("Region " + regionName + "with vectors " +  min + " | " + max + "created");
         }
-        logger.info("Successfully loaded " + regions.size() + " sound regions.");
     }
 
     /**
-     * Saves all cached regions to the regions.yml file.
+     * Indexes the dormant regions of every world that is loaded. Must run on the main thread.
      */
-    public void saveRegions() {
-        // Set the 'regions' section to null to clear it before saving
-        fileHelper.getRegionsConfig().set("regions", null);
-
-        for (SoundRegion region : regions.values()) {
-            String path = "regions." + region.name();
-
-            // We save the original corners, not the calculated min/max, for easier editing.
-            Vector pos1 = region.min();
-            Vector pos2 = region.max();
-
-            fileHelper.getRegionsConfig().set(path + ".world", region.world().getName());
-            fileHelper.getRegionsConfig().set(path + ".pos1", pos1);
-            fileHelper.getRegionsConfig().set(path + ".pos2", pos2);
+    private static RegionSnapshot activateLoadedWorlds(RegionSnapshot regions) {
+        RegionSnapshot activated = regions;
+        for (String worldName : regions.dormantWorlds().keySet()) {
+            World world = Bukkit.getWorld(worldName);
+            if (world != null) activated = activated.activate(world);
         }
+        return activated;
+    }
 
-        fileHelper.saveRegionsConfig();
-        logger.info("Successfully saved " + regions.size() + " sound regions.");
+    /**
+     * Writes all cached regions and the given bindings to another storage, on the calling thread.
+     * Used to convert between storage formats.
+     * @param target   The storage to write to. Everything it held before is replaced.
+     * @param bindings The region sound bindings to write along with the regions.
+     * @return The number of regions written.
+     * @throws IOException If the storage could not be written.
+     */
+    public int exportRegions(RegionStorage target, Map<String, String> bindings) throws IOException {
+        RegionSnapshot current = snapshot;
+        target.saveAll(current, bindings);
+        return current.size();
+    }
+
+    /**
+     * Routes future changes to a journal instead of the storage.
+     * @param journal The journal, or null to save to the storage again.
+     */
+    public void setJournal(@Nullable RegionJournal journal) {
+        this.journal = journal;
     }
 
     /**
@@ -101,16 +156,15 @@ public class RegionHandler {
      * @return true if the region was created successfully, false if a region with that name already exists.
      */
     public boolean defineRegion(String name, Location pos1, Location pos2) {
-        if (regions.containsKey(name.toLowerCase())) {
-            return false; // Region with this name already exists
-        }
-
-        Vector min = Vector.getMinimum(pos1.toVector(), pos2.toVector());
-        Vector max = Vector.getMaximum(pos1.toVector(), pos2.toVector());
-        SoundRegion newRegion = new SoundRegion(name, pos1.getWorld(), min, max);
+        SoundRegion newRegion = SoundRegion.of(name, pos1.getWorld(), pos1.toVector(), pos2.toVector());
 
-        regions.put(name.toLowerCase(), newRegion);
-        saveRegions(); // Save immediately after defining
+        synchronized (writeLock) {
+            if (snapshot.contains(name)) {
+                return false; // Region with this name already exists, possibly in a world that is not loaded
+            }
+            apply(current -> current.with(newRegion));
+            persist(new RegionJournal.Define(newRegion));
+        }
         return true;
     }
 
@@ -120,27 +174,251 @@ public class RegionHandler {
      * @return true if the region was found and deleted, false otherwise.
      */
     public boolean deleteRegion(String name) {
-        SoundRegion removed = regions.remove(name.toLowerCase());
-        if (removed != null) {
-            saveRegions(); // Save immediately after deleting
-            return true;
+        synchronized (writeLock) {
+            SoundRegion removed = snapshot.region(name);
+            if (removed != null) {
+                apply(current -> deleted(current, removed.name()));
+                persist(new RegionJournal.Delete(removed.name()));
+                return true;
+            }
+
+            String dormantName = snapshot.dormantRegionName(name);
+            if (dormantName == null) {
+                return false;
+            }
+            apply(current -> deleted(current, dormantName));
+            persist(new RegionJournal.Delete(dormantName));
+        }
+        return true;
+    }
+
+    /**
+     * Re-applies a region definition read back from the journal, without recording it again.
+     * Regions in worlds that are not loaded are kept until the world loads, as they are when loading regions.yml.
+     * @param region The region to restore.
+     */
+    public void restoreRegion(SoundRegion region) {
+        World world = Bukkit.getWorld(region.worldName());
+        synchronized (writeLock) {
+            if (world == null) {
+                apply(current -> current.withDormant(region));
+            } else {
+                // The world may have been recreated with a new UUID since the change was recorded
+                SoundRegion live = new SoundRegion(region.name(), world.getUID(), world.getName(),
+                        region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ());
+                apply(current -> current.with(live));
+            }
+        }
+    }
+
+    /**
+     * Re-applies a region deletion read back from the journal, without recording it again.
+     * @param name The name of the deleted region.
+     */
+    public void restoreDeletion(String name) {
+        synchronized (writeLock) {
+            if (snapshot.contains(name)) {
+                apply(current -> deleted(current, name));
+            }
+        }
+    }
+
+    /**
+     * @return The snapshot after deleting a region by name (case-insensitive), whether its world is loaded or not.
+     */
+    private static RegionSnapshot deleted(RegionSnapshot current, String name) {
+        SoundRegion removed = current.region(name);
+        if (removed != null) return current.without(removed);
+
+        String dormantName = current.dormantRegionName(name);
+        return (dormantName != null) ? current.withoutDormant(dormantName) : current;
+    }
+
+    /**
+     * Adds many regions at once, building the spatial indexes once and publishing a single new snapshot.
+     * Each added region is then saved like a defined one; the storage batches the writes.
+     * Regions in worlds that are not loaded are kept until the world loads, as they are when loading regions.
+     * Must be called on the main thread, as it looks up worlds.
+     * @param imported The regions to add. Their world is looked up by name. Existing regions with the same name are replaced.
+     */
+    public void importRegions(Collection<SoundRegion> imported) {
+        if (imported.isEmpty()) return;
+
+        synchronized (writeLock) {
+            RegionSnapshot current = snapshot;
+            Map<String, SoundRegion> accepted = new LinkedHashMap<>();
+            for (SoundRegion region : imported) {
+                accepted.put(region.name().toLowerCase(), region);
+            }
+
+            // Rebuild from scratch: one bulk load is much cheaper than inserting into the indexes one by one.
+            List<SoundRegion> active = new ArrayList<>(current.regions().size() + accepted.size());
+            List<String> replacedNames = new ArrayList<>();
+            for (SoundRegion region : current.regions().values()) {
+                if (accepted.containsKey(region.name().toLowerCase())) {
+                    replacedNames.add(region.name());
+                } else {
+                    active.add(region);
+                }
+            }
+            Map<String, DormantRegions.Builder> dormant = new LinkedHashMap<>();
+            for (DormantRegions world : current.dormantWorlds().values()) {
+                DormantRegions.Builder builder = dormant.computeIfAbsent(world.worldName(), DormantRegions.Builder::new);
+                for (int i = 0; i < world.size(); i++) {
+                    if (accepted.containsKey(world.name(i).toLowerCase())) {
+                        replacedNames.add(world.name(i));
+                    } else {
+                        builder.add(world.name(i), world.min(i), world.max(i));
+                    }
+                }
+            }
+
+            List<SoundRegion> addedActive = new ArrayList<>(accepted.size());
+            List<SoundRegion> addedDormant = new ArrayList<>();
+            Map<String, Optional<World>> worlds = new HashMap<>();
+            for (SoundRegion region : accepted.values()) {
+                Optional<World> world = worlds.computeIfAbsent(region.worldName(), worldName -> Optional.ofNullable(Bukkit.getWorld(worldName)));
+                if (world.isPresent()) {
+                    SoundRegion live = new SoundRegion(region.name(), world.get().getUID(), world.get().getName(),
+                            region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ());
+                    active.add(live);
+                    addedActive.add(live);
+                } else {
+                    dormant.computeIfAbsent(region.worldName(), DormantRegions.Builder::new).add(region);
+                    addedDormant.add(region);
+                }
+            }
+
+            List<DormantRegions> dormantWorlds = dormant.values().stream()
+                    .filter(builder -> !builder.isEmpty())
+                    .map(DormantRegions.Builder::build)
+                    .toList();
+            this.snapshot = RegionSnapshot.of(current.epoch() + 1, active, dormantWorlds);
+            record(new Change(snapshot.epoch(), replayed -> {
+                for (SoundRegion region : addedActive) replayed = replayed.with(region);
+                for (SoundRegion region : addedDormant) replayed = replayed.withDormant(region);
+                return replayed;
+            }));
+
+            // A replaced region may be stored under a name that differs in case
+            for (String replacedName : replacedNames) {
+                persist(new RegionJournal.Delete(replacedName));
+            }
+            for (SoundRegion region : addedActive) {
+                persist(new RegionJournal.Define(region));
+            }
+            for (SoundRegion region : addedDormant) {
+                persist(new RegionJournal.Define(region));
+            }
+        }
+    }
+
+    /**
+     * Indexes the regions of a world that has just been loaded, so they start playing.
+     * @param world The loaded world.
+     */
+    public void activateWorld(World world) {
+        synchronized (writeLock) {
+            DormantRegions dormant = snapshot.dormantWorlds().get(world.getName());
+            if (dormant == null) return;
+
+            this.snapshot = snapshot.activate(world);
+            logger.info("Activated " + dormant.size() + " sound regions in world '" + world.getName() + "'.");
+        }
+    }
+
+    /**
+     * Drops the index of a world that is being unloaded, keeping its regions in compact form until it loads again.
+     * @param world The world being unloaded.
+     */
+    public void deactivateWorld(World world) {
+        synchronized (writeLock) {
+            this.snapshot = snapshot.deactivate(world);
+        }
+    }
+
+    /**
+     * Applies a change to the live regions and remembers it, so a reload in progress can replay it.
+     * Called while holding writeLock.
+     */
+    private void apply(UnaryOperator<RegionSnapshot> change) {
+        this.snapshot = change.apply(snapshot);
+        record(new Change(snapshot.epoch(), change));
+    }
+
+    private void record(Change change) {
+        recentChanges.addLast(change);
+        if (recentChanges.size() > MAX_RECENT_CHANGES) {
+            forgottenEpoch = recentChanges.removeFirst().epoch();
+        }
+    }
+
+    /**
+     * Records a change to a single region, either in the journal or in the storage.
+     * Called while holding writeLock, right after the change is published.
+     */
+    private void persist(RegionJournal.Entry entry) {
+        RegionJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.append(entry);
+        } else if (entry instanceof RegionJournal.Define define) {
+            storage.saveRegion(snapshot, define.region());
+        } else if (entry instanceof RegionJournal.Delete delete) {
+            storage.deleteRegion(snapshot, delete.regionName());
         }
-        return false;
+    }
+
+    /**
+     * Gets the current regions and spatial indexes as one consistent, immutable view.
+     * Safe to call from any thread; later changes publish a new snapshot and leave this one untouched.
+     * @return The current RegionSnapshot.
+     */
+    public RegionSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
      * Finds the SoundRegion that contains a given location.
+     * When regions overlap, the most specific (smallest) one is returned.
      * @param location The location to check.
      * @return The SoundRegion, or null if the location is not in any defined region.
      */
     @Nullable
     public SoundRegion getRegionForLocation(Location location) {
-        for (SoundRegion region : regions.values()) {
-            if (region.contains(location)) {
-                return region;
-            }
-        }
-        return null;
+        World world = location.getWorld();
+        if (world == null) return null;
+        return getRegionAt(world.getUID(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Finds the most specific SoundRegion containing a point, without allocating.
+     * @param worldId The UUID of the world the point is in.
+     * @return The SoundRegion, or null if the point is not in any defined region.
+     */
+    @Nullable
+    public SoundRegion getRegionAt(UUID worldId, double x, double y, double z) {
+        return snapshot.regionAt(worldId, x, y, z);
+    }
+
+    /**
+     * Finds every SoundRegion that contains a given location.
+     * @param location The location to check.
+     * @return The containing regions, ordered from the most specific (smallest) to the least specific.
+     */
+    public List<SoundRegion> getRegionsForLocation(Location location) {
+        RegionTree tree = indexFor(location);
+        if (tree == null) return List.of();
+
+        List<SoundRegion> matches = new ArrayList<>();
+        tree.findAll(location.getX(), location.getY(), location.getZ(), matches);
+        matches.sort(RegionTree.MOST_SPECIFIC_FIRST);
+        return matches;
+    }
+
+    @Nullable
+    private RegionTree indexFor(Location location) {
+        World world = location.getWorld();
+        return world == null ? null : snapshot.index(world.getUID());
     }
 
     /**
@@ -150,14 +428,23 @@ public class RegionHandler {
      */
     @Nullable
     public SoundRegion getRegion(String regionName) {
-        return regions.get(regionName.toLowerCase());
+        return snapshot.region(regionName);
+    }
+
+    /**
+     * Checks whether a region exists, including regions in worlds that are not loaded.
+     * @param regionName The name of the region (case-insensitive).
+     * @return true if a region with that name is defined.
+     */
+    public boolean regionExists(String regionName) {
+        return snapshot.contains(regionName);
     }
 
     /**
-     * Gets a collection of all loaded regions.
+     * Gets a collection of all regions in loaded worlds.
      * @return A read-only collection of SoundRegions.
      */
     public Collection<SoundRegion> getAllRegions() {
-        return regions.values();
+        return snapshot.regions().values();
     }
 }
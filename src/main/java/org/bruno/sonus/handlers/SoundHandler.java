@@ -1,116 +1,859 @@
 package org.bruno.sonus.handlers;
 
+import net.kyori.adventure.sound.Sound;
+import org.bruno.sonus.data.RegionIds;
+import org.bruno.sonus.data.RegionSnapshot;
 import org.bruno.sonus.data.SoundProfile;
 import org.bruno.sonus.data.SoundRegion;
 import org.bruno.sonus.helpers.FoliaHelper;
 import org.bruno.sonus.helpers.MessagesHelper;
 import org.bruno.sonus.utils.CancellableTask;
+import org.bruno.sonus.utils.RegionTrackingMode;
+import org.bruno.sonus.utils.RegionTree;
+import org.bruno.sonus.utils.TimingWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class SoundHandler {
+    // Enough slots to cover about a minute of ticks; longer loops just wait for the wheel to come around.
+    private static final int LOOP_WHEEL_SLOTS = 1024;
+    // Upper bound for the random offset added to the first replay of a loop.
+    private static final int MAX_LOOP_JITTER_TICKS = 10;
+    // Number of players resolved by one worker job in an asynchronous update pass.
+    private static final int RESOLUTION_CHUNK_SIZE = 256;
+    // Region id standing for "not in any region".
+    private static final int NO_REGION = -1;
+    // Furthest a player may move between two region lookups, however far away the nearest region boundary is.
+    private static final double MAX_SKIP_DISTANCE = 64.0;
+
     private final RegionHandler regionHandler;
     private final FoliaHelper foliaHelper;
     private final SoundProfileHandler soundProfileHandler;
     private final MessagesHelper messagesHelper;
+    private final ConfigHandler configHandler;
+    private final Logger logger;
+
+    // Per-player state lives in one session per online player. Sessions sit in a dense slot table,
+    // so the update passes walk an array instead of hashing UUIDs; the slot of a player who quits
+    // is reused by the next one to join. The map is only used to find a player's session from an event.
+    private final Map<UUID, Session> sessionsByPlayer = new ConcurrentHashMap<>();
+    private final Object sessionLock = new Object();
+    private volatile Session[] sessionSlots = new Session[64];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int usedSlots;
 
-    // Tracks the current region for each player to detect changes.
-    private final Map<UUID, String> playerCurrentRegion = new ConcurrentHashMap<>();
+    // Tracks which players are in each region, indexed by region id, along with the region's looping
+    // sound. Null for regions nobody is in. Entries are written in place while holding occupantsLock,
+    // then the field is written again to publish them. All loops share a single timing wheel.
+    private volatile RegionOccupants[] regionOccupants = new RegionOccupants[0];
+    private final Object occupantsLock = new Object();
+    private final TimingWheel loopWheel;
+    private CancellableTask loopWheelTask;
 
-    // Tracks the active looping sound task for each player.
-    private final Map<UUID, CancellableTask> activeLoopingTasks = new ConcurrentHashMap<>();
     private CancellableTask mainUpdateTask;
+    private volatile boolean eventDriven;
+    private volatile long updatePeriod;
+    private volatile double exitMargin;
+    private volatile long exitGracePeriod;
+
+    // Reused by every global update pass so reading player positions does not allocate.
+    private final Location scratchLocation = new Location(null, 0, 0, 0);
+
+    // Asynchronous resolution: workers that resolve regions off the main thread, and the reused
+    // buffers of the pass. Both are replaced on every restart.
+    private ExecutorService resolverPool;
+    private ResolutionPass resolutionPass;
+
+    /**
+     * The state of one online player. Only ever written from the thread that owns the player
+     * (the main thread, or the player's region thread on Folia).
+     */
+    private static final class Session {
+        private final Player player;
+        private final int slot;
+
+        // The region the player is in, and the profile resolved when they entered it,
+        // so leaving the region does not need to look the profile up again.
+        private int regionId = NO_REGION;
+        @Nullable
+        private SoundRegion region;
+        @Nullable
+        private SoundProfile profile;
+        // Bumped on every region change, so an asynchronous pass can tell its snapshot went stale.
+        private int regionVersion;
+
+        // Where the player was last checked, against which regions, and how far they could move from
+        // there without crossing a region boundary. A polling pass skips the player while they stay
+        // within that distance or in the same block, as the answer cannot have changed.
+        @Nullable
+        private UUID checkedWorld;
+        @Nullable
+        private RegionSnapshot checkedRegions;
+        private double checkedX, checkedY, checkedZ;
+        private double safeDistance;
+        // Bumped on every check, so an asynchronous pass only records its distance if no newer check happened.
+        private int checkCount;
+        // Reused for every region lookup of this player.
+        private final RegionTree.Lookup lookup = new RegionTree.Lookup();
+
+        // After leaving into no region, the region whose sound keeps playing for the exit grace period,
+        // so coming back carries on with it. Bumping the version cancels the pending expiry.
+        private int lingerRegionId = NO_REGION;
+        @Nullable
+        private SoundProfile lingerProfile;
+        private int lingerVersion;
+
+        // On Folia, the repeating region check that runs on the player's own scheduler.
+        @Nullable
+        private CancellableTask updateTask;
+
+        private Session(Player player, int slot) {
+            this.player = player;
+            this.slot = slot;
+        }
+
+        private boolean isCheckedAt(@Nullable World world, Location location, RegionSnapshot regions) {
+            if (regions != checkedRegions || !Objects.equals((world != null) ? world.getUID() : null, checkedWorld)) {
+                return false;
+            }
+
+            double x = location.getX(), y = location.getY(), z = location.getZ();
+            if (Math.floor(x) == Math.floor(checkedX) && Math.floor(y) == Math.floor(checkedY) && Math.floor(z) == Math.floor(checkedZ)) {
+                return true;
+            }
+            double dx = x - checkedX, dy = y - checkedY, dz = z - checkedZ;
+            return dx * dx + dy * dy + dz * dz < safeDistance * safeDistance;
+        }
+
+        private void markChecked(@Nullable UUID worldId, Location location, RegionSnapshot regions, double safeDistance) {
+            checkedRegions = regions;
+            checkedWorld = worldId;
+            checkedX = location.getX();
+            checkedY = location.getY();
+            checkedZ = location.getZ();
+            this.safeDistance = safeDistance;
+            checkCount++;
+        }
+
+        private void setRegion(@Nullable SoundRegion region, @Nullable SoundProfile profile) {
+            this.regionId = regionId(region);
+            this.region = region;
+            this.profile = profile;
+            this.regionVersion++;
+        }
+    }
+
+    /**
+     * The players currently inside one region, and the loop replaying its sound to them.
+     * The loop exists only while the region is occupied.
+     */
+    private static final class RegionOccupants {
+        private final Set<Player> players = ConcurrentHashMap.newKeySet();
+        @Nullable
+        private final SoundProfile profile;
+        private TimingWheel.Timeout loop;
+
+        private RegionOccupants(@Nullable SoundProfile profile) {
+            this.profile = profile;
+        }
+    }
 
     public SoundHandler(RegionHandler regionHandler, FoliaHelper foliaHelper, SoundProfileHandler soundProfileHandler,
-                        MessagesHelper messagesHelper) {
+                        MessagesHelper messagesHelper, ConfigHandler configHandler, Logger logger) {
+        this.loopWheel = new TimingWheel(LOOP_WHEEL_SLOTS, logger);
         this.regionHandler = regionHandler;
         this.foliaHelper = foliaHelper;
         this.soundProfileHandler = soundProfileHandler;
         this.messagesHelper = messagesHelper;
+        this.configHandler = configHandler;
+        this.logger = logger;
     }
 
     public void start() {
-        // This task runs every half-second to check player locations.
-        this.mainUpdateTask = foliaHelper.runTaskTimerGlobal(this::updateAllPlayerSounds, 20L, 10L);
+        this.eventDriven = configHandler.getRegionTrackingMode() == RegionTrackingMode.EVENTS;
+
+        // In event mode, movement listeners do the work and this task is only a slow safety sweep.
+        this.updatePeriod = eventDriven ? configHandler.getSafetySweepInterval() : configHandler.getPollingInterval();
+        this.exitMargin = configHandler.getExitMargin();
+        this.exitGracePeriod = configHandler.getExitGracePeriod();
+
+        // A single task drives every looping sound.
+        this.loopWheelTask = foliaHelper.runTaskTimerGlobal(loopWheel::tick, 1L, 1L);
+
+        if (foliaHelper.isFolia()) {
+            // Players belong to different region threads on Folia, so each one is checked by a
+            // task on its own entity scheduler instead of a single pass on the global thread.
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                schedulePlayerUpdates(openSession(player));
+            }
+            return;
+        }
+
+        // Players who were online before the plugin started get their sessions here; later ones on join.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            openSession(player);
+        }
+        if (configHandler.isAsyncResolutionEnabled()) {
+            this.resolverPool = createResolverPool(configHandler.getResolverThreads());
+            this.resolutionPass = new ResolutionPass();
+            this.mainUpdateTask = foliaHelper.runTaskTimerGlobal(this::updateAllPlayerSoundsAsync, 20L, updatePeriod);
+        } else {
+            this.mainUpdateTask = foliaHelper.runTaskTimerGlobal(this::updateAllPlayerSounds, 20L, updatePeriod);
+        }
+    }
+
+    //<editor-fold desc="Player sessions">
+    /**
+     * Gets the session of an online player, opening one in a free slot if they have none yet.
+     */
+    private Session openSession(Player player) {
+        Session session = sessionsByPlayer.get(player.getUniqueId());
+        if (session != null) return session;
+
+        synchronized (sessionLock) {
+            session = sessionsByPlayer.get(player.getUniqueId());
+            if (session != null) return session;
+
+            int slot = (freeSlotCount > 0) ? freeSlots[--freeSlotCount] : usedSlots++;
+            Session[] slots = sessionSlots;
+            if (slot >= slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            session = new Session(player, slot);
+            slots[slot] = session;
+            sessionSlots = slots;
+            sessionsByPlayer.put(player.getUniqueId(), session);
+            return session;
+        }
+    }
+
+    /**
+     * Frees the slot of a session, so the next player to join can reuse it.
+     */
+    private void closeSession(Session session) {
+        synchronized (sessionLock) {
+            if (!sessionsByPlayer.remove(session.player.getUniqueId(), session)) return;
+
+            Session[] slots = sessionSlots;
+            slots[session.slot] = null;
+            sessionSlots = slots;
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+            }
+            freeSlots[freeSlotCount++] = session.slot;
+        }
+    }
+
+    private void clearSessions() {
+        synchronized (sessionLock) {
+            sessionsByPlayer.clear();
+            sessionSlots = new Session[sessionSlots.length];
+            freeSlotCount = 0;
+            usedSlots = 0;
+        }
+    }
+    //</editor-fold>
+
+    private static ExecutorService createResolverPool(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Sonus Region Resolver #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the players currently inside a region.
+     * Players who just left it and are still within the exit grace period are included.
+     * @param regionName The name of the region (case-insensitive).
+     * @return A read-only, live view of the region's occupants. Empty if nobody is inside.
+     */
+    public Set<Player> getPlayersInRegion(@NotNull String regionName) {
+        int regionId = RegionIds.find(regionName);
+        RegionOccupants occupants = (regionId != NO_REGION) ? occupantsOf(regionId) : null;
+        return (occupants != null) ? Collections.unmodifiableSet(occupants.players) : Set.of();
+    }
+
+    /**
+     * Gets the names of all regions that currently have at least one player inside.
+     * @return A read-only copy of the occupied region names (lower-case).
+     */
+    public Set<String> getOccupiedRegions() {
+        RegionOccupants[] occupants = regionOccupants;
+        Set<String> occupied = new HashSet<>();
+        for (int regionId = 0; regionId < occupants.length; regionId++) {
+            if (occupants[regionId] != null) occupied.add(RegionIds.name(regionId));
+        }
+        return Collections.unmodifiableSet(occupied);
+    }
+
+    @Nullable
+    private RegionOccupants occupantsOf(int regionId) {
+        RegionOccupants[] occupants = regionOccupants;
+        return (regionId < occupants.length) ? occupants[regionId] : null;
+    }
+
+    /**
+     * @return true if region changes are detected from player movement events rather than polling.
+     */
+    public boolean isEventDriven() {
+        return eventDriven;
     }
 
     public void shutdown() {
-        if (mainUpdateTask != null) mainUpdateTask.cancel();
-        // Stop all looping sounds for all players
-        activeLoopingTasks.values().forEach(CancellableTask::cancel);
-        activeLoopingTasks.clear();
+        stopTasks();
+        // Stop every sound still playing, including those lingering after an exit, as clearing the
+        // wheel below drops their pending stops. The plugin is going away, so there is no owning
+        // thread left to hand this to; stopping a sound only sends a packet.
+        for (Session session : sessionsByPlayer.values()) {
+            endLinger(session);
+            if (session.regionId != NO_REGION) {
+                stopSoundForPlayer(session);
+            }
+        }
+        // Forget every tracked region and loop, so players are picked up fresh on restart
+        synchronized (occupantsLock) {
+            regionOccupants = new RegionOccupants[0];
+        }
+        clearSessions();
+        loopWheel.clear();
     }
 
-    private void updateAllPlayerSounds() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            SoundRegion currentRegion = regionHandler.getRegionForLocation(player.getLocation());
-            String currentRegionName = (currentRegion != null) ? currentRegion.name() : null;
-            String previousRegionName = playerCurrentRegion.get(player.getUniqueId());
+    /**
+     * Restarts the scheduled tasks with the current settings, keeping every player's tracked
+     * region and every running loop.
+     */
+    public void restart() {
+        stopTasks();
+        start();
+    }
+
+    private void stopTasks() {
+        if (mainUpdateTask != null) {
+            mainUpdateTask.cancel();
+            mainUpdateTask = null;
+        }
+        if (resolverPool != null) {
+            resolverPool.shutdownNow();
+            resolverPool = null;
+            resolutionPass = null; // A pass still in flight is discarded when it completes
+        }
+        for (Session session : sessionsByPlayer.values()) {
+            if (session.updateTask != null) {
+                session.updateTask.cancel();
+                session.updateTask = null;
+            }
+        }
+        if (loopWheelTask != null) {
+            loopWheelTask.cancel();
+            loopWheelTask = null;
+        }
+    }
+
+    /**
+     * Brings every player in line with the current regions and profiles, after they were reloaded.
+     * Players whose region and bound profile did not change keep their sound and loop running;
+     * only the others are stopped and started again.
+     */
+    public void reconcile() {
+        // Restart the occupants of regions whose bound profile changed, so the new sound and loop take over.
+        RegionOccupants[] allOccupants = regionOccupants;
+        for (int regionId = 0; regionId < allOccupants.length; regionId++) {
+            RegionOccupants occupants = allOccupants[regionId];
+            if (occupants == null) continue;
+            SoundProfile currentProfile = soundProfileHandler.getProfileForRegion(regionId);
+            if (Objects.equals(currentProfile, occupants.profile)) continue;
+
+            for (Player player : occupants.players) {
+                runForPlayer(player, () -> {
+                    Session session = sessionsByPlayer.get(player.getUniqueId());
+                    if (session == null) return;
 
-            // If the player's region has changed, update their sound.
-            if (!Objects.equals(currentRegionName, previousRegionName)) {
+                    endLinger(session);
+                    if (session.regionId != NO_REGION) {
+                        stopSoundForPlayer(session);
+                        session.setRegion(null, null);
+                    }
+                });
+            }
+        }
 
-                // Stop the sound from the previous region
-                if (previousRegionName != null) {
-                    messagesHelper.sendDebugMessage("&cPlayer " + player.getName() + " exited region: &f" + previousRegionName + ". Stopping sound...");
-                    stopSoundForPlayer(player, previousRegionName);
+        // Then check everyone against the new regions. Players still in the same region are left alone.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            runForPlayer(player, () -> {
+                if (player.isOnline()) {
+                    updatePlayerSound(openSession(player), player.getLocation());
                 }
+            });
+        }
+    }
+
+    /**
+     * Runs a task for a player on the thread that owns them: right away, or on the player's
+     * own scheduler on Folia.
+     */
+    private void runForPlayer(Player player, Runnable task) {
+        if (foliaHelper.isFolia()) {
+            foliaHelper.runTask(player, task);
+        } else {
+            task.run();
+        }
+    }
 
-                // Start the sound for the new region
-                if (currentRegionName != null) {
-                    SoundProfile profile = soundProfileHandler.getProfileForRegion(currentRegionName);
-                    String soundName = (profile != null) ? profile.sound() : "None";
-                    messagesHelper.sendDebugMessage("&aPlayer " + player.getName() + " entered region: &f" + currentRegionName + ". Playing &f" + soundName + " sound...");
-                    startSoundForPlayer(player, currentRegionName);
+    /**
+     * Checks every online player's region. In the steady state (nobody changed region) this
+     * does not allocate: positions are read into a reused Location, the lookup works on
+     * primitive coordinates and debug messages are only built when debug mode is on.
+     * Players who stayed in the same block since their last check, or closer to where they were checked
+     * than the nearest region boundary was, are skipped as long as the regions did not change. Players
+     * far from every region are therefore only looked up again after moving a long way.
+     * Package-private so tests can run a pass without a scheduler.
+     */
+    void updateAllPlayerSounds() {
+        RegionSnapshot regions = regionHandler.getSnapshot();
+        for (Session session : sessionSlots) {
+            if (session == null) continue;
+            Location location = session.player.getLocation(scratchLocation);
+            if (session.isCheckedAt(location.getWorld(), location, regions)) continue;
+            updatePlayerSound(session, location);
+        }
+    }
+
+    //<editor-fold desc="Asynchronous update pass">
+    /**
+     * Checks every online player's region in three phases, so that nearly all of the work
+     * happens off the main thread:
+     * <ol>
+     *     <li>Snapshot: the main thread copies each player's world and position into primitive arrays.</li>
+     *     <li>Resolve: worker threads look the positions up in the current {@link RegionSnapshot}
+     *     and keep only the players whose region changed.</li>
+     *     <li>Apply: back on the main thread, only those transitions stop and start sounds.</li>
+     * </ol>
+     * If the previous pass has not been applied yet, this pass is skipped.
+     */
+    private void updateAllPlayerSoundsAsync() {
+        ResolutionPass pass = resolutionPass;
+        if (pass == null || !pass.inFlight.compareAndSet(false, true)) return;
+
+        RegionSnapshot regions = regionHandler.getSnapshot();
+        try {
+            pass.snapshot(regions);
+        } catch (RuntimeException e) {
+            pass.finish();
+            throw e;
+        }
+
+        int size = pass.size;
+        int jobCount = (size + RESOLUTION_CHUNK_SIZE - 1) / RESOLUTION_CHUNK_SIZE;
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[jobCount];
+        for (int job = 0; job < jobCount; job++) {
+            int from = job * RESOLUTION_CHUNK_SIZE;
+            int to = Math.min(size, from + RESOLUTION_CHUNK_SIZE);
+            jobs[job] = CompletableFuture.runAsync(() -> pass.resolve(regions, from, to), resolverPool);
+        }
+
+        CompletableFuture.allOf(jobs).whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.log(Level.SEVERE, "Failed to resolve player regions.", error);
+                pass.finish();
+                return;
+            }
+            pass.collectTransitions();
+            foliaHelper.runTaskOnMainThread(() -> {
+                try {
+                    if (pass == resolutionPass) applyTransitions(pass);
+                } finally {
+                    pass.finish();
                 }
+            });
+        });
+    }
+
+    /**
+     * Applies the region changes found by an asynchronous pass. A player is skipped if they
+     * left, or if their region was already updated by an event since the snapshot was taken.
+     */
+    private void applyTransitions(ResolutionPass pass) {
+        // Record how far each resolved player can move before they need another lookup
+        for (int i = 0; i < pass.size; i++) {
+            Session session = pass.sessions[i];
+            if (session.checkCount == pass.checkCounts[i]) {
+                session.safeDistance = pass.safeDistances[i];
+            }
+        }
+
+        for (int t = 0; t < pass.transitionCount; t++) {
+            int i = pass.transitions[t];
+            Session session = pass.sessions[i];
+            if (!session.player.isOnline() || session.regionVersion != pass.versions[i]) {
+                continue;
+            }
+            applyRegionChange(session, session.player.getLocation(scratchLocation), pass.resolved[i]);
+        }
+    }
+
+    /**
+     * The buffers of an asynchronous update pass. They are reused from one pass to the next
+     * and only grow, so a pass in which nobody changed region allocates almost nothing.
+     * <p>
+     * The snapshot is written by the main thread before the workers are submitted, each worker
+     * writes only its own range of {@link #resolved}, {@link #changed} and {@link #safeDistances}, and the results
+     * are read back on the main thread after every worker has finished.
+     */
+    private final class ResolutionPass {
+        private Session[] sessions = new Session[0];
+        private int[] previous = new int[0];
+        private SoundRegion[] current = new SoundRegion[0];
+        private int[] versions = new int[0];
+        private int[] checkCounts = new int[0];
+        private double[] safeDistances = new double[0];
+        private UUID[] worldIds = new UUID[0];
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private double[] zs = new double[0];
+        private SoundRegion[] resolved = new SoundRegion[0];
+        private boolean[] changed = new boolean[0];
+        private int[] transitions = new int[0];
+        private int size;
+        private int transitionCount;
+        // Set while a pass is running, so a slow pass is never overlapped by the next one.
+        private final AtomicBoolean inFlight = new AtomicBoolean();
 
-                // Update the player's tracked location
-                if (currentRegionName != null) {
-                    playerCurrentRegion.put(player.getUniqueId(), currentRegionName);
-                } else {
-                    playerCurrentRegion.remove(player.getUniqueId());
+        /**
+         * Phase one, on the main thread: copies the position and tracked region of each player
+         * who may have crossed a region boundary, or whose regions changed, since their last check.
+         */
+        private void snapshot(RegionSnapshot regions) {
+            Session[] slots = sessionSlots;
+            ensureCapacity(slots.length);
+            int i = 0;
+            for (Session session : slots) {
+                if (session == null) continue;
+                Location location = session.player.getLocation(scratchLocation);
+                World world = location.getWorld();
+                if (session.isCheckedAt(world, location, regions)) continue;
+
+                // Until the result is back, only the same block counts as checked
+                UUID worldId = (world != null) ? world.getUID() : null;
+                session.markChecked(worldId, location, regions, 0);
+                sessions[i] = session;
+                previous[i] = session.regionId;
+                current[i] = session.region;
+                versions[i] = session.regionVersion;
+                checkCounts[i] = session.checkCount;
+                worldIds[i] = worldId;
+                xs[i] = location.getX();
+                ys[i] = location.getY();
+                zs[i] = location.getZ();
+                i++;
+            }
+            size = i;
+        }
+
+        /**
+         * Phase two, on a worker thread: resolves the players in {@code [from, to)}.
+         */
+        private void resolve(RegionSnapshot regions, int from, int to) {
+            RegionTree.Lookup lookup = new RegionTree.Lookup();
+            for (int i = from; i < to; i++) {
+                SoundRegion region = null;
+                double boundaryDistance = MAX_SKIP_DISTANCE;
+                if (worldIds[i] != null) {
+                    region = regions.regionAt(worldIds[i], xs[i], ys[i], zs[i], MAX_SKIP_DISTANCE, lookup);
+                    boundaryDistance = lookup.boundaryDistance();
                 }
+                region = applyExitMargin(region, current[i], worldIds[i], xs[i], ys[i], zs[i], regions);
+                safeDistances[i] = safeDistance(boundaryDistance, region, xs[i], ys[i], zs[i]);
+                resolved[i] = region;
+                changed[i] = regionId(region) != previous[i];
+            }
+        }
+
+        /**
+         * Gathers the indexes of the players whose region changed, so the main thread only visits those.
+         */
+        private void collectTransitions() {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (changed[i]) transitions[count++] = i;
             }
+            transitionCount = count;
+        }
+
+        /**
+         * Ends the pass and drops the references it held, so players who quit can be collected.
+         */
+        private void finish() {
+            Arrays.fill(sessions, 0, size, null);
+            Arrays.fill(current, 0, size, null);
+            Arrays.fill(worldIds, 0, size, null);
+            Arrays.fill(resolved, 0, size, null);
+            size = 0;
+            transitionCount = 0;
+            inFlight.set(false);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (sessions.length >= capacity) return;
+            sessions = new Session[capacity];
+            previous = new int[capacity];
+            current = new SoundRegion[capacity];
+            versions = new int[capacity];
+            checkCounts = new int[capacity];
+            safeDistances = new double[capacity];
+            worldIds = new UUID[capacity];
+            xs = new double[capacity];
+            ys = new double[capacity];
+            zs = new double[capacity];
+            resolved = new SoundRegion[capacity];
+            changed = new boolean[capacity];
+            transitions = new int[capacity];
         }
     }
+    //</editor-fold>
 
-    private void startSoundForPlayer(@NotNull Player player, @NotNull String regionName) {
-        SoundProfile profile = soundProfileHandler.getProfileForRegion(regionName);
-        if (profile == null) return;
+    /**
+     * Schedules the repeating region check of a single player on that player's scheduler.
+     * Used on Folia, where the check must run on the region thread that owns the player.
+     */
+    private void schedulePlayerUpdates(@NotNull Session session) {
+        // Each task owns its Location so checks on different region threads never share one.
+        Location location = new Location(null, 0, 0, 0);
+        CancellableTask task = foliaHelper.runTaskTimerForEntity(session.player, () -> {
+            session.player.getLocation(location);
+            if (!session.isCheckedAt(location.getWorld(), location, regionHandler.getSnapshot())) {
+                updatePlayerSound(session, location);
+            }
+        }, 20L, updatePeriod);
+
+        CancellableTask previousTask = session.updateTask;
+        session.updateTask = task;
+        if (previousTask != null) {
+            previousTask.cancel();
+        }
+    }
 
-        player.playSound(player.getLocation(), profile.sound(), profile.source(), profile.volume(), profile.pitch());
+    /**
+     * Starts tracking a player who just joined. On Folia this schedules their personal
+     * region check; elsewhere the global update pass picks them up automatically.
+     *
+     * @param player The player who joined.
+     */
+    public void handlePlayerJoin(@NotNull Player player) {
+        Session session = openSession(player);
+        if (foliaHelper.isFolia()) {
+            schedulePlayerUpdates(session);
+        }
+    }
 
-        if (profile.loop()) {
-            CancellableTask loopingTask = foliaHelper.runTaskTimerForEntity(player, () -> {
-                Location stableLocation = player.getLocation().getBlock().getLocation();
-                SoundRegion checkRegion = regionHandler.getRegionForLocation(stableLocation);
-                if (checkRegion != null && checkRegion.name().equalsIgnoreCase(regionName)) {
-                    player.playSound(player.getLocation(), profile.sound(), profile.source(), profile.volume(), profile.pitch());
+    /**
+     * Re-evaluates a player's region after they moved to a different block.
+     * Called from the movement listener with the destination of the move.
+     *
+     * @param player The player who moved.
+     * @param to     The location the player is moving to.
+     */
+    public void handlePlayerMove(@NotNull Player player, @NotNull Location to) {
+        updatePlayerSound(openSession(player), to);
+    }
+
+    /**
+     * Re-evaluates a player's region on the next tick, once a teleport, respawn or join
+     * has been fully applied and the player's location is final.
+     *
+     * @param player The player who was relocated.
+     */
+    public void handlePlayerRelocated(@NotNull Player player) {
+        foliaHelper.runTaskLater(player, () -> {
+            if (player.isOnline()) {
+                updatePlayerSound(openSession(player), player.getLocation());
+            }
+        }, 1L);
+    }
+
+    /**
+     * Compares the region at the given location with the player's tracked region and
+     * stops/starts sounds if it changed.
+     */
+    private void updatePlayerSound(@NotNull Session session, @NotNull Location location) {
+        World world = location.getWorld();
+        RegionSnapshot regions = regionHandler.getSnapshot();
+        UUID worldId = (world != null) ? world.getUID() : null;
+        double x = location.getX(), y = location.getY(), z = location.getZ();
+
+        SoundRegion currentRegion = null;
+        double boundaryDistance = MAX_SKIP_DISTANCE;
+        if (worldId != null) {
+            currentRegion = regions.regionAt(worldId, x, y, z, MAX_SKIP_DISTANCE, session.lookup);
+            boundaryDistance = session.lookup.boundaryDistance();
+        }
+        currentRegion = applyExitMargin(currentRegion, session.region, worldId, x, y, z, regions);
+        session.markChecked(worldId, location, regions, safeDistance(boundaryDistance, currentRegion, x, y, z));
+
+        // If the player's region has not changed, there is nothing to do.
+        if (regionId(currentRegion) == session.regionId) {
+            return;
+        }
+        applyRegionChange(session, location, currentRegion);
+    }
+
+    /**
+     * Gets how far a player can move before their region may change: the distance to the nearest region
+     * boundary, or to the edge of the exit margin if only the margin keeps them in their region.
+     * @param region The region the player is in after the lookup.
+     */
+    private double safeDistance(double boundaryDistance, @Nullable SoundRegion region, double x, double y, double z) {
+        double margin = exitMargin;
+        if (region != null && margin > 0 && !region.contains(x, y, z) && region.contains(x, y, z, margin)) {
+            return Math.min(boundaryDistance, region.distanceToExit(x, y, z, margin));
+        }
+        return boundaryDistance;
+    }
+
+    /**
+     * Keeps a player in the region they are in while they are within the exit margin around it.
+     * Inside the margin the region still counts as containing the player, so it is only left
+     * for a region that would be picked over it anyway, such as a smaller region inside it.
+     * @param found   The region found at the player's position.
+     * @param current The region the player is in.
+     * @return The region the player should be in.
+     */
+    @Nullable
+    private SoundRegion applyExitMargin(@Nullable SoundRegion found, @Nullable SoundRegion current, @Nullable UUID worldId,
+                                        double x, double y, double z, RegionSnapshot regions) {
+        if (current == null || worldId == null || found == current) return found;
+
+        double margin = exitMargin;
+        if (margin <= 0 || !current.worldId().equals(worldId) || !current.contains(x, y, z, margin)) return found;
+        if (found != null && RegionTree.MOST_SPECIFIC_FIRST.compare(found, current) < 0) return found;
+
+        // Only hold on to the region if it was not deleted or redefined in the meantime
+        return (regions.region(current.name()) == current) ? current : found;
+    }
+
+    /**
+     * Moves a player from their tracked region to a new one, stopping and starting sounds.
+     */
+    private void applyRegionChange(@NotNull Session session, @NotNull Location location, @Nullable SoundRegion currentRegion) {
+        Player player = session.player;
+
+        // Back in the region whose sound is still playing: carry on with it as if the player never left
+        if (currentRegion != null && currentRegion.id() == session.lingerRegionId) {
+            if (messagesHelper.isDebugEnabled()) {
+                messagesHelper.sendDebugMessage("&aPlayer " + player.getName() + " re-entered region: &f" + currentRegion.name() + ". Resuming sound...");
+            }
+            SoundProfile profile = session.lingerProfile;
+            session.lingerRegionId = NO_REGION;
+            session.lingerProfile = null;
+            session.lingerVersion++;
+            session.setRegion(currentRegion, profile);
+            return;
+        }
+        endLinger(session);
+
+        // Stop the sound from the previous region, or let it play on for a moment if the player left into no region
+        if (session.regionId != NO_REGION) {
+            if (currentRegion == null && exitGracePeriod > 0) {
+                linger(session);
+            } else {
+                if (messagesHelper.isDebugEnabled()) {
+                    messagesHelper.sendDebugMessage("&cPlayer " + player.getName() + " exited region: &f" + RegionIds.name(session.regionId) + ". Stopping sound...");
                 }
-            }, (long) profile.loopTime() * 20L, (long) profile.loopTime() * 20L);
+                stopSoundForPlayer(session);
+            }
+        }
 
-            activeLoopingTasks.put(player.getUniqueId(), loopingTask);
+        // Start the sound for the new region and update the player's tracked region
+        if (currentRegion != null) {
+            SoundProfile profile = soundProfileHandler.getProfileForRegion(currentRegion.id());
+            if (messagesHelper.isDebugEnabled()) {
+                String soundName = (profile != null) ? profile.sound() : "None";
+                messagesHelper.sendDebugMessage("&aPlayer " + player.getName() + " entered region: &f" + currentRegion.name() + ". Playing &f" + soundName + " sound...");
+            }
+            startSoundForPlayer(player, location, currentRegion, profile);
+            session.setRegion(currentRegion, profile);
+        } else {
+            session.setRegion(null, null);
         }
     }
 
-    private void stopSoundForPlayer(@NotNull Player player, @NotNull String previousRegionName) {
-        // Stop any active looping sound for the player
-        CancellableTask loopingTask = activeLoopingTasks.remove(player.getUniqueId());
-        if (loopingTask != null) {
-            loopingTask.cancel();
+    private static int regionId(@Nullable SoundRegion region) {
+        return (region != null) ? region.id() : NO_REGION;
+    }
+
+    private void startSoundForPlayer(@NotNull Player player, @NotNull Location location, @NotNull SoundRegion region,
+                                     @Nullable SoundProfile profile) {
+        enterRegion(player, region.id(), profile);
+        if (profile == null) return;
+
+        player.playSound(profile.playSound(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Keeps the sound of the region a player just left playing for the exit grace period. The player
+     * stays among the region's occupants meanwhile, so its loop carries on if they come back in time.
+     */
+    private void linger(@NotNull Session session) {
+        if (messagesHelper.isDebugEnabled()) {
+            messagesHelper.sendDebugMessage("&cPlayer " + session.player.getName() + " exited region: &f" + RegionIds.name(session.regionId) + ". Stopping sound in " + exitGracePeriod + " ticks...");
         }
+        session.lingerRegionId = session.regionId;
+        session.lingerProfile = session.profile;
+        int version = ++session.lingerVersion;
+
+        loopWheel.schedule(() -> {
+            runForPlayer(session.player, () -> {
+                if (session.lingerVersion == version) endLinger(session);
+            });
+            return 0;
+        }, exitGracePeriod);
+    }
+
+    /**
+     * Stops the lingering sound of the region a player left, if any.
+     */
+    private void endLinger(@NotNull Session session) {
+        if (session.lingerRegionId == NO_REGION) return;
+
+        stopRegionSound(session.player, session.lingerRegionId, session.lingerProfile);
+        session.lingerRegionId = NO_REGION;
+        session.lingerProfile = null;
+        session.lingerVersion++;
+    }
+
+    private void stopSoundForPlayer(@NotNull Session session) {
+        stopRegionSound(session.player, session.regionId, session.profile);
+    }
+
+    private void stopRegionSound(@NotNull Player player, int regionId, @Nullable SoundProfile previousProfile) {
+        leaveRegion(player, regionId);
 
-        SoundProfile previousProfile = soundProfileHandler.getProfileForRegion(previousRegionName);
         if (previousProfile != null) {
             // Tell the player's client to stop playing that specific sound from its specific category.
-            player.stopSound(previousProfile.sound(), previousProfile.source());
+            player.stopSound(previousProfile.stopSound());
         }
 
         // TODO: Implement fade-out logic here if desired.
@@ -121,10 +864,111 @@ public class SoundHandler {
     }
 
     public void handlePlayerQuit(@NotNull Player player) {
-        // Get the player's last known region before removing them from the map.
-        String previousRegionName = playerCurrentRegion.remove(player.getUniqueId());
-        if (previousRegionName != null) {
-            stopSoundForPlayer(player, previousRegionName);
+        Session session = sessionsByPlayer.get(player.getUniqueId());
+        if (session == null) return;
+        closeSession(session);
+
+        if (session.updateTask != null) {
+            session.updateTask.cancel();
+        }
+        endLinger(session);
+        if (session.regionId != NO_REGION) {
+            stopSoundForPlayer(session);
+        }
+    }
+
+    /**
+     * Adds a player to a region's occupants. The first player to enter a looping region
+     * starts the region's loop.
+     */
+    private void enterRegion(@NotNull Player player, int regionId, @Nullable SoundProfile profile) {
+        synchronized (occupantsLock) {
+            RegionOccupants[] allOccupants = regionOccupants;
+            if (regionId >= allOccupants.length) {
+                allOccupants = Arrays.copyOf(allOccupants, Math.max(regionId + 1, allOccupants.length * 2));
+            }
+
+            RegionOccupants occupants = allOccupants[regionId];
+            if (occupants == null) {
+                occupants = new RegionOccupants(profile);
+                if (profile != null && profile.loop()) {
+                    occupants.loop = scheduleRegionLoop(regionId, profile);
+                }
+                allOccupants[regionId] = occupants;
+            }
+            occupants.players.add(player);
+            regionOccupants = allOccupants;
+        }
+    }
+
+    /**
+     * Removes a player from a region's occupants. The last player to leave stops the region's loop.
+     */
+    private void leaveRegion(@NotNull Player player, int regionId) {
+        synchronized (occupantsLock) {
+            RegionOccupants occupants = occupantsOf(regionId);
+            if (occupants == null) return;
+
+            occupants.players.remove(player);
+            if (!occupants.players.isEmpty()) return;
+
+            if (occupants.loop != null) occupants.loop.cancel();
+            RegionOccupants[] allOccupants = regionOccupants;
+            allOccupants[regionId] = null;
+            regionOccupants = allOccupants;
+        }
+    }
+
+    private TimingWheel.Timeout scheduleRegionLoop(int regionId, SoundProfile profile) {
+        long period = Math.max(1L, (long) profile.loopTime() * 20L);
+        // Spread the first replay so regions that become occupied together do not all replay on the same tick.
+        long jitter = ThreadLocalRandom.current().nextLong(Math.min(MAX_LOOP_JITTER_TICKS, period / 4) + 1);
+        return loopWheel.schedule(new RegionLoop(regionId, profile, period), period + jitter);
+    }
+
+    /**
+     * The looping sound of one region, replayed to all of its occupants in one batch by the
+     * shared timing wheel. Membership comes from the occupancy index, so no region lookups
+     * are needed when replaying.
+     */
+    private final class RegionLoop implements TimingWheel.Task {
+        private final int regionId;
+        private final SoundProfile profile;
+        private final long period;
+
+        private RegionLoop(int regionId, SoundProfile profile, long period) {
+            this.regionId = regionId;
+            this.profile = profile;
+            this.period = period;
+        }
+
+        @Override
+        public long run() {
+            RegionOccupants occupants = occupantsOf(regionId);
+            if (occupants == null) return 0;
+
+            if (!foliaHelper.isFolia()) {
+                // The wheel already ticks on the main thread, so replay right here without a task per player.
+                for (Player player : occupants.players) {
+                    replay(player);
+                }
+                return period;
+            }
+
+            for (Player player : occupants.players) {
+                // The wheel ticks on the global thread; on Folia each player must be handled on their own thread.
+                foliaHelper.runTask(player, () -> replay(player));
+            }
+            return period;
+        }
+
+        private void replay(Player player) {
+            if (player.isOnline()) {
+                // Players who joined since the last replay still hear the copy started when they entered;
+                // stop it so the replay restarts the track instead of playing over it.
+                player.stopSound(profile.stopSound());
+                player.playSound(profile.playSound(), Sound.Emitter.self());
+            }
         }
     }
 }
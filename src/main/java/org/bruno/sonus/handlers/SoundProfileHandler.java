@@ -1,12 +1,22 @@
 package org.bruno.sonus.handlers;
 
+import org.bruno.sonus.data.RegionIds;
 import org.bruno.sonus.data.SoundProfile;
+import org.bruno.sonus.data.SoundRegion;
 import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.utils.RegionJournal;
 import org.bruno.sonus.utils.SetSoundResult;
 import org.bukkit.SoundCategory;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,37 +24,89 @@ import java.util.logging.Logger;
 
 public class SoundProfileHandler {
     private final FileHelper fileHelper;
+    private final RegionStorage storage;
     private final Logger logger;
     private final RegionHandler regionHandler;
 
-    private final Map<String, SoundProfile> soundProfiles = new ConcurrentHashMap<>();
-    private final Map<String, String> regionSoundMap = new ConcurrentHashMap<>();
+    // Replaced as a whole when sounds.yml is reloaded, so lookups never see a half-loaded state.
+    private volatile Map<String, SoundProfile> soundProfiles = new ConcurrentHashMap<>();
+    private volatile Map<String, String> regionSoundMap = new ConcurrentHashMap<>();
+    // The bound profile of each region, indexed by region id, so the per-tick code needs no string work.
+    // Entries are written in place while holding the lock, then the field is written again to publish them.
+    private volatile SoundProfile[] regionProfiles = new SoundProfile[0];
 
-    public SoundProfileHandler(FileHelper fileHelper, Logger logger, RegionHandler regionHandler) {
+    // Counts binding changes. The latest ones are kept so a reload that was read from disk while they
+    // were made can replay them instead of losing them. Only touched while holding the lock.
+    private static final int MAX_RECENT_BINDINGS = 1024;
+    private long bindingsVersion;
+    private final Deque<BindingChange> recentBindings = new ArrayDeque<>();
+    // The version of the newest change that was dropped from recentBindings.
+    private long forgottenVersion = -1;
+
+    private record BindingChange(long version, String regionKey, String profileKey) {}
+
+    // When set, sound assignments are appended to the journal instead of being handed to the storage.
+    @Nullable
+    private volatile RegionJournal journal;
+
+    /**
+     * Sound profiles and region bindings read from disk, not yet in use.
+     * @param profiles The sound profiles, keyed by upper-case name.
+     * @param bindings The bound profile name of each region, keyed by lower-case region name.
+     * @param version  The version of the live bindings when reading started.
+     */
+    public record ProfileData(Map<String, SoundProfile> profiles, Map<String, String> bindings, long version) {}
+
+    /**
+     * @param storage Where the region bindings are stored. The profiles themselves always live in sounds.yml.
+     */
+    public SoundProfileHandler(FileHelper fileHelper, RegionStorage storage, Logger logger, RegionHandler regionHandler) {
         this.fileHelper = fileHelper;
+        this.storage = storage;
         this.logger = logger;
         this.regionHandler = regionHandler;
-
-        loadSoundProfiles();
     }
 
     public void loadSoundProfiles() {
-        soundProfiles.clear();
-        regionSoundMap.clear();
+        publish(readProfiles());
+    }
+
+    /**
+     * Reads the sound profiles from sounds.yml and the region bindings from the storage, without putting them in use.
+     * Does not touch the live profiles, so it can run off the main thread during a reload.
+     * @return The loaded profiles and bindings, to be handed to {@link #publish(ProfileData)}.
+     */
+    public ProfileData readProfiles() {
+        long startVersion;
+        synchronized (this) {
+            startVersion = bindingsVersion;
+        }
+        Map<String, SoundProfile> soundProfiles = new ConcurrentHashMap<>();
 
-        ConfigurationSection profilesSection = fileHelper.getSoundsConfig().getConfigurationSection("sound-profiles");
+        // This may run off the main thread while the background writer updates the live document,
+        // so read everything from one private copy of it.
+        FileConfiguration config = fileHelper.copySoundsConfig();
+        ConfigurationSection profilesSection = config.getConfigurationSection("sound-profiles");
         if (profilesSection != null) {
             for (String profileName : profilesSection.getKeys(false)) {
                 String path = "sound-profiles." + profileName;
                 try {
-                    String sound = fileHelper.getSoundsConfig().getString(path + ".sound");
-                    SoundCategory source = SoundCategory.valueOf(fileHelper.getSoundsConfig().getString(path + ".source", "MASTER").toUpperCase());
-                    float volume = (float) fileHelper.getSoundsConfig().getDouble(path + ".volume", 1.0);
-                    float pitch = (float) fileHelper.getSoundsConfig().getDouble(path + ".pitch", 1.0);
-                    boolean loop = fileHelper.getSoundsConfig().getBoolean(path + ".loop", false);
-                    int loopTime = fileHelper.getSoundsConfig().getInt(path + ".loop-time", 60);
-
-                    soundProfiles.put(profileName.toUpperCase(), new SoundProfile(sound, source, volume, pitch, loop, loopTime));
+                    String sound = config.getString(path + ".sound");
+                    SoundCategory source = SoundCategory.valueOf(config.getString(path + ".source", "MASTER").toUpperCase());
+                    float volume = (float) config.getDouble(path + ".volume", 1.0);
+                    float pitch = (float) config.getDouble(path + ".pitch", 1.0);
+                    boolean loop = config.getBoolean(path + ".loop", false);
+                    int loopTime = config.getInt(path + ".loop-time", 60);
+
+                    if (sound == null) {
+                        logger.warning("Failed to load sound profile '" + profileName + "': it has no sound.");
+                        continue;
+                    }
+
+                    // Parse the sound key now, so an invalid one is reported here instead of on every play
+                    soundProfiles.put(profileName.toUpperCase(), SoundProfile.compile(sound, source, volume, pitch, loop, loopTime));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Failed to load sound profile '" + profileName + "': " + e.getMessage());
                 } catch (Exception e) {
                     logger.warning("Failed to load sound profile '" + profileName + "'. Please check its format.");
                 }
@@ -52,22 +114,52 @@ public class SoundProfileHandler {
         }
         logger.info("Loaded " + soundProfiles.size() + " sound profiles.");
 
-        ConfigurationSection regionSoundsSection = fileHelper.getSoundsConfig().getConfigurationSection("region-sounds");
-        if (regionSoundsSection != null) {
-            for (String regionName : regionSoundsSection.getKeys(false)) {
-                regionSoundMap.put(regionName.toLowerCase(), regionSoundsSection.getString(regionName).toUpperCase());
+        try {
+            return new ProfileData(soundProfiles, new ConcurrentHashMap<>(storage.loadBindings()), startVersion);
+        } catch (IOException e) {
+            // Refuse to start with no bindings, as the next save would overwrite the stored ones.
+            throw new IllegalStateException("Could not read the region sounds from " + storage.name() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Puts profiles and bindings read by {@link #readProfiles()} in use, replacing the current ones.
+     * Bindings changed after reading started are applied again on top, so they are not lost.
+     * @param data The profiles and bindings to use.
+     * @throws IllegalStateException If so many bindings were changed since reading started that they can no longer be replayed.
+     */
+    public synchronized void publish(ProfileData data) {
+        if (data.version() < forgottenVersion) {
+            throw new IllegalStateException("Too many region sounds were changed while they were being read. Please reload again.");
+        }
+
+        Map<String, String> bindings = data.bindings();
+        for (BindingChange change : recentBindings) {
+            if (change.version() > data.version()) bindings.put(change.regionKey(), change.profileKey());
+        }
+
+        SoundProfile[] resolved = new SoundProfile[0];
+        for (Map.Entry<String, String> binding : bindings.entrySet()) {
+            int regionId = RegionIds.of(binding.getKey());
+            if (regionId >= resolved.length) {
+                resolved = Arrays.copyOf(resolved, Math.max(regionId + 1, resolved.length * 2));
             }
+            resolved[regionId] = data.profiles().get(binding.getValue());
         }
+
+        this.soundProfiles = data.profiles();
+        this.regionSoundMap = bindings;
+        this.regionProfiles = resolved;
     }
 
     /**
-     * Binds a sound profile to a region and saves it to the sounds.yml file.
+     * Binds a sound profile to a region and saves it to the storage.
      * @param regionName The name of the region to bind to.
      * @param profileName The name of the sound profile to assign.
      * @return An enum indicating the result of the operation (SUCCESS, REGION_NOT_FOUND, PROFILE_NOT_FOUND).
      */
     public SetSoundResult setRegionSound(String regionName, String profileName) {
-        if (regionHandler.getRegion(regionName) == null) {
+        if (!regionHandler.regionExists(regionName)) {
             return SetSoundResult.REGION_NOT_FOUND;
         }
 
@@ -76,14 +168,65 @@ public class SoundProfileHandler {
             return SetSoundResult.PROFILE_NOT_FOUND;
         }
 
-        // Update the configuration and save the file
-        fileHelper.getSoundsConfig().set("region-sounds." + regionName.toLowerCase(), profileName.toUpperCase());
-        fileHelper.saveSoundsConfig();
+        // Only this binding changes: update it in memory so it applies immediately, then save it in the background
+        bind(regionName.toLowerCase(), profileName.toUpperCase());
+        return SetSoundResult.SUCCESS;
+    }
 
-        // Reload the internal map to reflect the change immediately
-        loadSoundProfiles();
+    /**
+     * Binds many sound profiles at once. The regions and profiles must already be validated;
+     * the storage batches the writes.
+     * @param bindings The profile name to bind, keyed by region name.
+     */
+    public void importBindings(Map<String, String> bindings) {
+        bindings.forEach((regionName, profileName) -> bind(regionName.toLowerCase(), profileName.toUpperCase()));
+    }
 
-        return SetSoundResult.SUCCESS;
+    private void bind(String regionKey, String profileKey) {
+        resolve(regionKey, profileKey);
+
+        RegionJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.append(new RegionJournal.SetSound(regionKey, profileKey));
+        } else {
+            storage.saveBinding(regionKey, profileKey);
+        }
+    }
+
+    /**
+     * Re-applies a sound assignment read back from the journal, without recording it again.
+     * @param regionName The name of the region.
+     * @param profileName The name of the assigned sound profile.
+     */
+    public void restoreRegionSound(String regionName, String profileName) {
+        resolve(regionName.toLowerCase(), profileName.toUpperCase());
+    }
+
+    /**
+     * Records a binding and resolves its profile for the region's id.
+     */
+    private synchronized void resolve(String regionKey, String profileKey) {
+        regionSoundMap.put(regionKey, profileKey);
+        recentBindings.addLast(new BindingChange(++bindingsVersion, regionKey, profileKey));
+        if (recentBindings.size() > MAX_RECENT_BINDINGS) {
+            forgottenVersion = recentBindings.removeFirst().version();
+        }
+
+        int regionId = RegionIds.of(regionKey);
+        SoundProfile[] profiles = regionProfiles;
+        if (regionId >= profiles.length) {
+            profiles = Arrays.copyOf(profiles, Math.max(regionId + 1, profiles.length * 2));
+        }
+        profiles[regionId] = soundProfiles.get(profileKey);
+        regionProfiles = profiles;
+    }
+
+    /**
+     * Routes future sound assignments to a journal instead of the storage.
+     * @param journal The journal, or null to save to the storage again.
+     */
+    public void setJournal(@Nullable RegionJournal journal) {
+        this.journal = journal;
     }
 
     /**
@@ -93,9 +236,19 @@ public class SoundProfileHandler {
      */
     @Nullable
     public SoundProfile getProfileForRegion(String regionName) {
-        String profileName = regionSoundMap.get(regionName.toLowerCase());
-        if (profileName == null) return null;
-        return soundProfiles.get(profileName);
+        int regionId = RegionIds.find(regionName);
+        return (regionId >= 0) ? getProfileForRegion(regionId) : null;
+    }
+
+    /**
+     * Gets the SoundProfile associated with a region id. Does no hashing or string work.
+     * @param regionId The id of the region, see {@link SoundRegion#id()}.
+     * @return The SoundProfile, or null if none is assigned.
+     */
+    @Nullable
+    public SoundProfile getProfileForRegion(int regionId) {
+        SoundProfile[] profiles = regionProfiles;
+        return (regionId < profiles.length) ? profiles[regionId] : null;
     }
 
     /**
@@ -106,4 +259,12 @@ public class SoundProfileHandler {
     public Set<String> getSoundProfileKeys() {
         return soundProfiles.keySet();
     }
+
+    /**
+     * Gets every region sound binding currently in use.
+     * @return A read-only view of the bound profile names, keyed by lower-case region name.
+     */
+    public Map<String, String> getBindings() {
+        return Collections.unmodifiableMap(regionSoundMap);
+    }
 }
@@ -2,11 +2,31 @@ package org.bruno.sonus.helpers;
 
 import org.bruno.sonus.Sonus;
 import org.bruno.sonus.utils.Constants;
+import org.bruno.sonus.utils.WriteBehindQueue;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,16 +34,27 @@ import java.util.logging.Logger;
  * A helper class to manage all custom configuration files for the Sonus plugin.
  */
 public final class FileHelper {
+    // How long a save waits for further changes to the same file before it is written.
+    private static final long SAVE_DELAY_MILLIS = 500;
+
     private final Sonus plugin;
     private final Logger logger;
+    private final WriteBehindQueue saveQueue;
+
+    private volatile FileConfiguration regionsConfig;
+    private volatile FileConfiguration soundsConfig;
+    private volatile FileConfiguration messagesConfig;
 
-    private FileConfiguration regionsConfig;
-    private FileConfiguration soundsConfig;
-    private FileConfiguration messagesConfig;
+    // Held while regions.yml or sounds.yml is written or swapped for a newer version read from disk.
+    private final Object configLock = new Object();
+    // A SHA-256 digest of each file as it was last read or written by Sonus, used to ignore
+    // change notifications for files whose contents did not actually change.
+    private final Map<String, byte[]> contentHashes = new ConcurrentHashMap<>();
 
     public FileHelper(Sonus plugin, Logger logger) {
         this.plugin = plugin;
         this.logger = logger;
+        this.saveQueue = new WriteBehindQueue("Sonus Storage Writer", SAVE_DELAY_MILLIS, logger);
         initialize();
     }
 
@@ -33,45 +64,277 @@ public final class FileHelper {
     public void initialize() {
         logger.info("Loading Sonus configuration files...");
 
-        this.regionsConfig = setupCustomFile(Constants.Files.REGIONS_FILE);
-        this.soundsConfig = setupCustomFile(Constants.Files.SOUNDS_FILE);
-        this.messagesConfig = setupCustomFile(Constants.Files.MESSAGES_FILE);
+        // The files are independent, so they are read and parsed side by side on the fork-join pool.
+        CompletableFuture<FileConfiguration> regions = CompletableFuture.supplyAsync(() -> setupCustomFile(Constants.Files.REGIONS_FILE));
+        CompletableFuture<FileConfiguration> sounds = CompletableFuture.supplyAsync(() -> setupCustomFile(Constants.Files.SOUNDS_FILE));
+        CompletableFuture<FileConfiguration> messages = CompletableFuture.supplyAsync(() -> setupCustomFile(Constants.Files.MESSAGES_FILE));
+
+        this.regionsConfig = regions.join();
+        this.soundsConfig = sounds.join();
+        this.messagesConfig = messages.join();
 
         logger.info("All Sonus configuration files loaded successfully.");
     }
 
     /**
      * Reloads all custom configuration files from the disk.
+     * Pending saves are written first, so no change is lost or read back stale.
      */
     public void reloadAll() {
         logger.info("Reloading Sonus configuration files...");
+        saveQueue.flush();
 
-        this.regionsConfig = setupCustomFile(Constants.Files.REGIONS_FILE);
-        this.soundsConfig = setupCustomFile(Constants.Files.SOUNDS_FILE);
-        this.messagesConfig = setupCustomFile(Constants.Files.MESSAGES_FILE);
+        synchronized (configLock) {
+            this.regionsConfig = setupCustomFile(Constants.Files.REGIONS_FILE);
+            this.soundsConfig = setupCustomFile(Constants.Files.SOUNDS_FILE);
+            this.messagesConfig = setupCustomFile(Constants.Files.MESSAGES_FILE);
+        }
 
         logger.info("All Sonus files have been reloaded.");
     }
 
     public FileConfiguration getRegionsConfig() { return this.regionsConfig; }
+
+    /**
+     * Takes a private copy of the regions config, so it can be read on any thread while the
+     * background writer keeps updating the live one.
+     * @return A copy holding everything in the regions config at the time of the call.
+     */
+    public FileConfiguration copyRegionsConfig() {
+        return copyConfig(() -> regionsConfig, Constants.Files.REGIONS_FILE);
+    }
+
     public FileConfiguration getSoundsConfig() { return this.soundsConfig; }
+
+    /**
+     * Takes a private copy of the sounds config, so it can be read on any thread while the
+     * background writer keeps updating the live one.
+     * @return A copy holding everything in the sounds config at the time of the call.
+     */
+    public FileConfiguration copySoundsConfig() {
+        return copyConfig(() -> soundsConfig, Constants.Files.SOUNDS_FILE);
+    }
+
+    private FileConfiguration copyConfig(Supplier<FileConfiguration> config, String fileName) {
+        String contents;
+        synchronized (configLock) {
+            contents = config.get().saveToString();
+        }
+
+        YamlConfiguration copy = new YamlConfiguration();
+        try {
+            copy.loadFromString(contents);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalStateException("Could not copy " + fileName + ": " + e.getMessage(), e);
+        }
+        return copy;
+    }
+
     public FileConfiguration getMessagesConfig() {
         return this.messagesConfig;
     }
 
     public void saveRegionsConfig() {
+        saveConfig(regionsConfig, Constants.Files.REGIONS_FILE);
+    }
+
+    public void saveSoundsConfig() {
+        saveConfig(soundsConfig, Constants.Files.SOUNDS_FILE);
+    }
+
+    /**
+     * A write to a file in the data folder.
+     */
+    @FunctionalInterface
+    public interface SaveTask {
+        void save() throws IOException;
+    }
+
+    /**
+     * Queues a save of any file on the background writer. Saves of the same file requested in
+     * quick succession are coalesced, so only the last one runs.
+     * @param fileName The name of the file that is written.
+     * @param task     The write. Runs on the writer thread, so it must only read thread-safe state.
+     */
+    public void queueSave(String fileName, SaveTask task) {
+        saveQueue.submit(fileName, () -> {
+            try {
+                task.save();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save the " + fileName + " file!", e);
+            }
+        });
+    }
+
+    /**
+     * Queues a save of regions.yml on the background writer. Saves requested in quick succession
+     * are coalesced into one write.
+     * @param update Brings the in-memory regions config up to date right before it is written.
+     *               Runs on the writer thread, so it must only read thread-safe state.
+     */
+    public void queueRegionsSave(Consumer<FileConfiguration> update) {
+        queueSave(Constants.Files.REGIONS_FILE, () -> saveRegionsConfig(update));
+    }
+
+    /**
+     * Brings the regions config up to date and writes it right away, on the calling thread.
+     * @param update Brings the in-memory regions config up to date right before it is written.
+     * @throws IOException If the file could not be written.
+     */
+    public void saveRegionsConfig(Consumer<FileConfiguration> update) throws IOException {
+        synchronized (configLock) {
+            FileConfiguration config = regionsConfig;
+            update.accept(config);
+            write(Constants.Files.REGIONS_FILE, config.saveToString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Queues a save of sounds.yml on the background writer. Saves requested in quick succession
+     * are coalesced into one write.
+     * @param update Brings the in-memory sounds config up to date right before it is written.
+     *               Runs on the writer thread, so it must only read thread-safe state.
+     */
+    public void queueSoundsSave(Consumer<FileConfiguration> update) {
+        queueSave(Constants.Files.SOUNDS_FILE, () -> saveSoundsConfig(update));
+    }
+
+    /**
+     * Brings the sounds config up to date and writes it right away, on the calling thread.
+     * @param update Brings the in-memory sounds config up to date right before it is written.
+     * @throws IOException If the file could not be written.
+     */
+    public void saveSoundsConfig(Consumer<FileConfiguration> update) throws IOException {
+        synchronized (configLock) {
+            FileConfiguration config = soundsConfig;
+            update.accept(config);
+            write(Constants.Files.SOUNDS_FILE, config.saveToString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Reads a configuration file back from disk if its contents differ from what Sonus last
+     * read or wrote, and puts the new version in use. Used when a file is changed by hand or by
+     * another program while the server runs.
+     * @param fileName regions.yml, sounds.yml or messages.yml.
+     * @return The newly loaded configuration, or null if the file is unchanged, missing or not valid YAML.
+     */
+    @Nullable
+    public FileConfiguration reloadIfChanged(String fileName) {
+        Path path = getDataPath(fileName);
+        synchronized (configLock) {
+            byte[] data;
+            try {
+                data = Files.readAllBytes(path);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not read " + fileName + ".", e);
+                return null;
+            }
+
+            byte[] hash = hash(data);
+            if (Arrays.equals(hash, contentHashes.get(fileName))) {
+                return null;
+            }
+
+            YamlConfiguration config = new YamlConfiguration();
+            try {
+                config.loadFromString(new String(data, StandardCharsets.UTF_8));
+            } catch (InvalidConfigurationException e) {
+                // Most likely caught halfway through being written; the next change will be picked up.
+                logger.warning("Ignoring the change to " + fileName + " because it is not valid YAML: " + e.getMessage());
+                return null;
+            }
+            contentHashes.put(fileName, hash);
+
+            switch (fileName) {
+                case Constants.Files.REGIONS_FILE -> this.regionsConfig = config;
+                case Constants.Files.SOUNDS_FILE -> this.soundsConfig = config;
+                case Constants.Files.MESSAGES_FILE -> this.messagesConfig = config;
+                default -> throw new IllegalArgumentException("Not a configuration file: " + fileName);
+            }
+            return config;
+        }
+    }
+
+    /**
+     * Resolves a file inside the plugin's data folder.
+     * @param fileName The name of the file.
+     * @return The path of the file, which may not exist yet.
+     */
+    public Path getDataPath(String fileName) {
+        return plugin.getDataFolder().toPath().resolve(fileName);
+    }
+
+    /**
+     * Resolves a file name given by a command sender inside the plugin's data folder.
+     * @param fileName The name of the file, which may include sub folders.
+     * @return The path of the file, or null if the name points outside the data folder.
+     */
+    @Nullable
+    public Path resolveUserFile(String fileName) {
+        Path dataFolder = plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        Path file = dataFolder.resolve(fileName).normalize();
+        return (file.startsWith(dataFolder) && !file.equals(dataFolder)) ? file : null;
+    }
+
+    /**
+     * Writes every queued save and stops the background writer. Called when the plugin is disabled.
+     */
+    public void shutdown() {
+        saveQueue.shutdown();
+    }
+
+    private void saveConfig(FileConfiguration config, String fileName) {
         try {
-            regionsConfig.save(new File(plugin.getDataFolder(), Constants.Files.REGIONS_FILE));
+            synchronized (configLock) {
+                write(fileName, config.saveToString().getBytes(StandardCharsets.UTF_8));
+            }
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save the regions.yml file!", e);
+            logger.log(Level.SEVERE, "Could not save the " + fileName + " file!", e);
         }
     }
 
-    public void saveSoundsConfig() {
+    private void write(String fileName, byte[] data) throws IOException {
+        writeAtomically(getDataPath(fileName), data);
+        contentHashes.put(fileName, hash(data));
+    }
+
+    private static byte[] hash(byte[] data) {
         try {
-            soundsConfig.save(new File(plugin.getDataFolder(), Constants.Files.SOUNDS_FILE));
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save the sounds.yml file!", e);
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Required on every JVM
+        }
+    }
+
+    /**
+     * Replaces a file so that it always holds either its old or its new contents, even if the
+     * server is killed halfway. The data is written and synced to a temporary file next to the
+     * target, which is then renamed over it.
+     *
+     * @param target The file to replace.
+     * @param data   The new contents.
+     * @throws IOException If the file could not be written.
+     */
+    public static void writeAtomically(Path target, byte[] data) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -90,6 +353,14 @@ public final class FileHelper {
             plugin.saveResource(fileName, false);
         }
 
-        return YamlConfiguration.loadConfiguration(file);
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            contentHashes.put(fileName, hash(data));
+            config.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (IOException | InvalidConfigurationException e) {
+            logger.log(Level.SEVERE, "Cannot load " + fileName, e);
+        }
+        return config;
     }
 }
@@ -114,6 +114,15 @@ public class MessagesHelper {
         }
     }
 
+    /**
+     * Checks if debug mode is enabled. Callers on hot paths should check this before
+     * building a debug message, so the string is never concatenated when debug is off.
+     * @return true if debug messages are being sent.
+     */
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
     /**
      * Enables or disables debug mode for this helper instance.
      * @param enabled true to enable, false to disable.
@@ -55,6 +55,30 @@ public final class PermissionsHelper {
                 sender.hasPermission(Constants.Permissions.CMD_SET);
     }
 
+    public static boolean hasConvertPermission(CommandSender sender) {
+        return sender.hasPermission(Constants.Permissions.ALL) ||
+                sender.hasPermission(Constants.Permissions.ALL_COMMANDS) ||
+                sender.hasPermission(Constants.Permissions.CMD_CONVERT);
+    }
+
+    public static boolean hasImportPermission(CommandSender sender) {
+        return sender.hasPermission(Constants.Permissions.ALL) ||
+                sender.hasPermission(Constants.Permissions.ALL_COMMANDS) ||
+                sender.hasPermission(Constants.Permissions.CMD_IMPORT);
+    }
+
+    public static boolean hasExportPermission(CommandSender sender) {
+        return sender.hasPermission(Constants.Permissions.ALL) ||
+                sender.hasPermission(Constants.Permissions.ALL_COMMANDS) ||
+                sender.hasPermission(Constants.Permissions.CMD_EXPORT);
+    }
+
+    public static boolean hasCheckPermission(CommandSender sender) {
+        return sender.hasPermission(Constants.Permissions.ALL) ||
+                sender.hasPermission(Constants.Permissions.ALL_COMMANDS) ||
+                sender.hasPermission(Constants.Permissions.CMD_CHECK);
+    }
+
     //</editor-fold>
 
     //<editor-fold desc="FEATURE PERMISSIONS (Player-Specific)">
@@ -27,6 +27,8 @@ public class PlayerConnectionListener implements Listener {
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
+        soundHandler.handlePlayerJoin(event.getPlayer());
+
         boolean isCheckForUpdatesEnabled = configHandler.isCheckForUpdatesEnabled();
         if (!isCheckForUpdatesEnabled) return;
 
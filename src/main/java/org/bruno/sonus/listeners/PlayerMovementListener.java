@@ -0,0 +1,68 @@
+package org.bruno.sonus.listeners;
+
+import org.bruno.sonus.handlers.SoundHandler;
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+/**
+ * Drives region detection from player movement when the tracking mode is set to EVENTS.
+ * Only moves that cross into another block are forwarded, so head rotation and small
+ * steps inside a block cost nothing.
+ */
+public class PlayerMovementListener implements Listener {
+
+    private final SoundHandler soundHandler;
+
+    public PlayerMovementListener(SoundHandler soundHandler) {
+        this.soundHandler = soundHandler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (!soundHandler.isEventDriven()) return;
+
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null || !hasChangedBlock(from, to)) return;
+
+        soundHandler.handlePlayerMove(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (!soundHandler.isEventDriven()) return;
+        soundHandler.handlePlayerRelocated(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        if (!soundHandler.isEventDriven()) return;
+        soundHandler.handlePlayerRelocated(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        if (!soundHandler.isEventDriven()) return;
+        soundHandler.handlePlayerRelocated(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (!soundHandler.isEventDriven()) return;
+        soundHandler.handlePlayerRelocated(event.getPlayer());
+    }
+
+    private static boolean hasChangedBlock(Location from, Location to) {
+        return from.getBlockX() != to.getBlockX()
+                || from.getBlockY() != to.getBlockY()
+                || from.getBlockZ() != to.getBlockZ()
+                || from.getWorld() != to.getWorld();
+    }
+}
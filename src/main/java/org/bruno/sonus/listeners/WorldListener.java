@@ -0,0 +1,31 @@
+package org.bruno.sonus.listeners;
+
+import org.bruno.sonus.handlers.RegionHandler;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Builds the region index of a world when it loads, and drops it when the world unloads,
+ * so worlds loaded after Sonus (for example by a world manager) get their regions too.
+ */
+public class WorldListener implements Listener {
+
+    private final RegionHandler regionHandler;
+
+    public WorldListener(RegionHandler regionHandler) {
+        this.regionHandler = regionHandler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        regionHandler.activateWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        regionHandler.deactivateWorld(event.getWorld());
+    }
+}
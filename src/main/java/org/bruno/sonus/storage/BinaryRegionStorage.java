@@ -0,0 +1,123 @@
+package org.bruno.sonus.storage;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.utils.BinaryRegionFile;
+import org.bruno.sonus.utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Stores regions in the compact regions.bin file, see {@link BinaryRegionFile}.
+ * Region sound bindings stay in sounds.yml.
+ */
+public class BinaryRegionStorage implements RegionStorage {
+    private final FileHelper fileHelper;
+    private final YamlRegionStorage yamlStorage;
+    private final Logger logger;
+    private final Path binaryFile;
+    // The regions of the write still waiting in the save queue, so loading returns them instead of the
+    // older file. Cleared once they are written, unless a newer write was queued meanwhile.
+    private final AtomicReference<RegionSnapshot> pendingWrite = new AtomicReference<>();
+
+    /**
+     * @param yamlStorage Stores the bindings, and provides the regions to convert when regions.bin does not exist yet.
+     */
+    public BinaryRegionStorage(FileHelper fileHelper, YamlRegionStorage yamlStorage, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.yamlStorage = yamlStorage;
+        this.logger = logger;
+        this.binaryFile = fileHelper.getDataPath(Constants.Files.REGIONS_BINARY_FILE);
+    }
+
+    @Override
+    public String name() {
+        return Constants.Files.REGIONS_BINARY_FILE;
+    }
+
+    /**
+     * Reads the regions from regions.bin, or takes them from a write that is still waiting to be made.
+     * If the file does not exist yet, the regions are converted from regions.yml instead, and
+     * regions.bin is written from them.
+     */
+    @Override
+    public RegionSnapshot loadRegions() throws IOException {
+        RegionSnapshot pending = pendingWrite.get();
+        if (pending != null) {
+            return dormant(pending);
+        }
+        if (Files.exists(binaryFile)) {
+            return BinaryRegionFile.read(binaryFile);
+        }
+
+        RegionSnapshot converted = yamlStorage.loadRegions();
+        write(converted);
+        logger.info("Converted " + converted.size() + " regions from " + Constants.Files.REGIONS_FILE + " to " + Constants.Files.REGIONS_BINARY_FILE + ".");
+        return converted;
+    }
+
+    @Override
+    public Map<String, String> loadBindings() {
+        return yamlStorage.loadBindings();
+    }
+
+    @Override
+    public void saveRegion(RegionSnapshot snapshot, SoundRegion region) {
+        queueWrite(snapshot);
+    }
+
+    @Override
+    public void deleteRegion(RegionSnapshot snapshot, String name) {
+        queueWrite(snapshot);
+    }
+
+    private void queueWrite(RegionSnapshot snapshot) {
+        // The file is always written whole; a newer snapshot replaces one that is still waiting.
+        pendingWrite.set(snapshot);
+        fileHelper.queueSave(Constants.Files.REGIONS_BINARY_FILE, () -> {
+            write(snapshot);
+            pendingWrite.compareAndSet(snapshot, null);
+        });
+    }
+
+    /**
+     * @return The same regions with every one of them dormant, as they are when read from the file.
+     */
+    private static RegionSnapshot dormant(RegionSnapshot regions) {
+        Map<String, DormantRegions.Builder> byWorld = new LinkedHashMap<>();
+        for (DormantRegions world : regions.dormantWorlds().values()) {
+            DormantRegions.Builder builder = byWorld.computeIfAbsent(world.worldName(), DormantRegions.Builder::new);
+            for (int i = 0; i < world.size(); i++) {
+                builder.add(world.name(i), world.min(i), world.max(i));
+            }
+        }
+        for (SoundRegion region : regions.regions().values()) {
+            byWorld.computeIfAbsent(region.worldName(), DormantRegions.Builder::new).add(region);
+        }
+        return RegionSnapshot.of(0, List.of(), byWorld.values().stream().map(DormantRegions.Builder::build).toList());
+    }
+
+    @Override
+    public void saveBinding(String regionName, String profileName) {
+        yamlStorage.saveBinding(regionName, profileName);
+    }
+
+    @Override
+    public void saveAll(RegionSnapshot regions, Map<String, String> bindings) throws IOException {
+        write(regions);
+        yamlStorage.saveBindings(bindings);
+    }
+
+    private void write(RegionSnapshot regions) throws IOException {
+        BinaryRegionFile.write(binaryFile, regions.regions().values(), regions.dormantWorlds().values());
+    }
+}
@@ -0,0 +1,79 @@
+package org.bruno.sonus.storage;
+
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Persists the regions and the sound profile bound to each region.
+ * <p>
+ * Loading may happen on any thread. Single changes are handed over as they happen and written in
+ * the background, where implementations batch changes that arrive in quick succession.
+ * Sound profiles themselves are not part of this; they always live in sounds.yml.
+ */
+public interface RegionStorage {
+
+    /**
+     * Prepares the storage for use. Called once, before anything else.
+     * @throws IOException If the storage cannot be opened.
+     */
+    default void open() throws IOException {}
+
+    /**
+     * @return A short description of where the data is stored, such as a file name.
+     */
+    String name();
+
+    /**
+     * Reads every region. Changes handed over earlier are included, even if they have not been written yet.
+     * Worlds cannot be looked up safely off the main thread, so every region is returned dormant,
+     * keyed by world name; the RegionHandler activates the loaded worlds when it publishes them.
+     * @return The regions, to be published by the RegionHandler.
+     * @throws IOException If the regions cannot be read.
+     */
+    RegionSnapshot loadRegions() throws IOException;
+
+    /**
+     * Reads the region sound bindings. Changes handed over earlier are included, even if they
+     * have not been written yet.
+     * @return The bound profile name (upper-case), keyed by lower-case region name.
+     * @throws IOException If the bindings cannot be read.
+     */
+    Map<String, String> loadBindings() throws IOException;
+
+    /**
+     * Saves a defined or replaced region in the background.
+     * @param snapshot The regions right after the change.
+     * @param region   The region that was defined.
+     */
+    void saveRegion(RegionSnapshot snapshot, SoundRegion region);
+
+    /**
+     * Removes a deleted region in the background.
+     * @param snapshot The regions right after the change.
+     * @param name     The name of the deleted region, as it was stored.
+     */
+    void deleteRegion(RegionSnapshot snapshot, String name);
+
+    /**
+     * Saves a region sound binding in the background.
+     * @param regionName  The lower-case name of the region.
+     * @param profileName The upper-case name of the bound profile.
+     */
+    void saveBinding(String regionName, String profileName);
+
+    /**
+     * Replaces everything stored with the given state, on the calling thread.
+     * @param regions  The regions to store.
+     * @param bindings The bound profile names, keyed by lower-case region name.
+     * @throws IOException If the state could not be written.
+     */
+    void saveAll(RegionSnapshot regions, Map<String, String> bindings) throws IOException;
+
+    /**
+     * Writes every pending change and releases the storage. Called when the plugin is disabled.
+     */
+    default void close() {}
+}
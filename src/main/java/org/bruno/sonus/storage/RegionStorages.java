@@ -0,0 +1,39 @@
+package org.bruno.sonus.storage;
+
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.utils.Constants;
+import org.bruno.sonus.utils.StorageMode;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Creates the {@link RegionStorage} for a storage mode.
+ */
+public final class RegionStorages {
+
+    private RegionStorages() {}
+
+    /**
+     * Creates and opens the storage used by a storage mode. JOURNAL mode journals on top of the
+     * YAML files, so it gets the YAML storage.
+     * @param mode The storage mode.
+     * @return The opened storage. The caller closes it.
+     * @throws IOException If the storage cannot be opened.
+     */
+    public static RegionStorage create(StorageMode mode, FileHelper fileHelper, Logger logger) throws IOException {
+        YamlRegionStorage yamlStorage = new YamlRegionStorage(fileHelper, logger);
+        RegionStorage storage = switch (mode) {
+            case YAML, JOURNAL -> yamlStorage;
+            case BINARY -> new BinaryRegionStorage(fileHelper, yamlStorage, logger);
+            case SQLITE -> new SqliteRegionStorage(fileHelper.getDataPath(Constants.Files.DATABASE_FILE), yamlStorage, logger);
+        };
+        try {
+            storage.open();
+        } catch (IOException e) {
+            storage.close();
+            throw e;
+        }
+        return storage;
+    }
+}
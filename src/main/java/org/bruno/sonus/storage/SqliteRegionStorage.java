@@ -0,0 +1,366 @@
+package org.bruno.sonus.storage;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores regions and region sound bindings in an embedded SQLite database.
+ * <p>
+ * Both live in indexed tables, so a change touches a single row instead of a whole file.
+ * Every database access runs on one dedicated thread, which owns the connection. Changes are
+ * queued and written shortly after in one transaction, with consecutive statements of the same
+ * kind sent as a JDBC batch. The SQLite driver is bundled with Paper and Spigot.
+ */
+public class SqliteRegionStorage implements RegionStorage {
+    // Changes made within this window are written in one transaction.
+    private static final long BATCH_DELAY_MILLIS = 50;
+    // How long to wait before trying again after changes could not be written.
+    private static final long RETRY_DELAY_MILLIS = 5000;
+    // Rows sent to the database per batch when writing everything at once.
+    private static final int BATCH_SIZE = 1000;
+    // Stored in the database header once the schema exists and the old data has been imported.
+    private static final int SCHEMA_VERSION = 1;
+
+    private static final String UPSERT_REGION = "INSERT OR REPLACE INTO regions (name, world, min_x, min_y, min_z, max_x, max_y, max_z) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_REGION = "DELETE FROM regions WHERE name = ?";
+    private static final String UPSERT_BINDING = "INSERT OR REPLACE INTO region_sounds (region, profile) VALUES (?, ?)";
+
+    private final Path databaseFile;
+    private final RegionStorage importSource;
+    private final Logger logger;
+    private final ScheduledExecutorService executor;
+    private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+
+    // Only used on the executor thread.
+    private Connection connection;
+    // Changes taken from the queue but not committed yet. They stay here, ahead of anything queued
+    // later, until a transaction holding them commits. Only used on the executor thread.
+    private final List<Change> uncommitted = new ArrayList<>();
+
+    /**
+     * A single change waiting to be written.
+     */
+    private sealed interface Change permits SaveRegion, DeleteRegion, SaveBinding {}
+    private record SaveRegion(SoundRegion region) implements Change {}
+    private record DeleteRegion(String name) implements Change {}
+    private record SaveBinding(String regionName, String profileName) implements Change {}
+
+    /**
+     * @param databaseFile The database file. It is created when the storage is opened.
+     * @param importSource The storage to copy regions and bindings from when the database is first created.
+     * @param logger       The logger used to report database errors.
+     */
+    public SqliteRegionStorage(Path databaseFile, RegionStorage importSource, Logger logger) {
+        this.databaseFile = databaseFile;
+        this.importSource = importSource;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sonus Database Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String name() {
+        return databaseFile.getFileName().toString();
+    }
+
+    @Override
+    public void open() throws IOException {
+        call(() -> {
+            try {
+                Class.forName("org.sqlite.JDBC");
+            } catch (ClassNotFoundException e) {
+                throw new IOException("The SQLite driver is not available on this server.", e);
+            }
+
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.toAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS regions (" +
+                        "name TEXT NOT NULL PRIMARY KEY COLLATE NOCASE, " +
+                        "world TEXT NOT NULL, " +
+                        "min_x REAL NOT NULL, min_y REAL NOT NULL, min_z REAL NOT NULL, " +
+                        "max_x REAL NOT NULL, max_y REAL NOT NULL, max_z REAL NOT NULL)");
+                statement.execute("CREATE INDEX IF NOT EXISTS regions_world ON regions (world)");
+                statement.execute("CREATE TABLE IF NOT EXISTS region_sounds (" +
+                        "region TEXT NOT NULL PRIMARY KEY COLLATE NOCASE, " +
+                        "profile TEXT NOT NULL)");
+
+                int version;
+                try (ResultSet result = statement.executeQuery("PRAGMA user_version")) {
+                    version = result.next() ? result.getInt(1) : 0;
+                }
+                if (version == 0) {
+                    // A new database: carry over what was stored before switching to it.
+                    RegionSnapshot regions = importSource.loadRegions();
+                    writeAll(regions, importSource.loadBindings());
+                    statement.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                    logger.info("Imported " + regions.size() + " regions from " + importSource.name() + " into " + name() + ".");
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public RegionSnapshot loadRegions() throws IOException {
+        return call(() -> {
+            writePending();
+
+            // Every region stays dormant, keyed by world name, until the RegionHandler activates its world.
+            Map<String, DormantRegions.Builder> dormant = new LinkedHashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT name, world, min_x, min_y, min_z, max_x, max_y, max_z FROM regions")) {
+                while (result.next()) {
+                    String name = result.getString(1);
+                    String worldName = result.getString(2);
+                    double minX = result.getDouble(3), minY = result.getDouble(4), minZ = result.getDouble(5);
+                    double maxX = result.getDouble(6), maxY = result.getDouble(7), maxZ = result.getDouble(8);
+                    dormant.computeIfAbsent(worldName, DormantRegions.Builder::new).add(name, minX, minY, minZ, maxX, maxY, maxZ);
+                }
+            }
+            return RegionSnapshot.of(0, List.of(), dormant.values().stream().map(DormantRegions.Builder::build).toList());
+        });
+    }
+
+    @Override
+    public Map<String, String> loadBindings() throws IOException {
+        return call(() -> {
+            writePending();
+
+            Map<String, String> bindings = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT region, profile FROM region_sounds")) {
+                while (result.next()) {
+                    bindings.put(result.getString(1).toLowerCase(), result.getString(2).toUpperCase());
+                }
+            }
+            return bindings;
+        });
+    }
+
+    @Override
+    public void saveRegion(RegionSnapshot snapshot, SoundRegion region) {
+        queue(new SaveRegion(region));
+    }
+
+    @Override
+    public void deleteRegion(RegionSnapshot snapshot, String name) {
+        queue(new DeleteRegion(name));
+    }
+
+    @Override
+    public void saveBinding(String regionName, String profileName) {
+        queue(new SaveBinding(regionName, profileName));
+    }
+
+    @Override
+    public void saveAll(RegionSnapshot regions, Map<String, String> bindings) throws IOException {
+        call(() -> {
+            // Everything queued so far is part of the given state already.
+            pending.clear();
+            uncommitted.clear();
+            writeAll(regions, bindings);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            call(() -> {
+                if (connection == null) return null; // Never opened
+                writePending();
+                connection.close();
+                return null;
+            });
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to close the region database.", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void queue(Change change) {
+        pending.add(change);
+        scheduleCommit(BATCH_DELAY_MILLIS);
+    }
+
+    private void scheduleCommit(long delayMillis) {
+        if (commitScheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::commit, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.severe("Could not save a region change because the database is already closed.");
+            }
+        }
+    }
+
+    /**
+     * Runs a task on the database thread and waits for it.
+     */
+    private <T> T call(Callable<T> task) throws IOException {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the region database.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) throw cause;
+            throw new IOException("Region database error: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    //<editor-fold desc="Database thread">
+    private void commit() {
+        commitScheduled.set(false);
+        try {
+            writePending();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not write region changes to the database! Trying again in "
+                    + (RETRY_DELAY_MILLIS / 1000) + " seconds.", e);
+            scheduleCommit(RETRY_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Writes every uncommitted and queued change in one transaction. If it fails, the changes are
+     * kept and written again by the next call.
+     */
+    private void writePending() throws SQLException {
+        Change queued;
+        while ((queued = pending.poll()) != null) {
+            uncommitted.add(queued);
+        }
+        if (uncommitted.isEmpty()) return;
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement upsertRegion = connection.prepareStatement(UPSERT_REGION);
+             PreparedStatement deleteRegion = connection.prepareStatement(DELETE_REGION);
+             PreparedStatement upsertBinding = connection.prepareStatement(UPSERT_BINDING)) {
+            // Changes must apply in order, so a batch is sent whenever the kind of statement changes.
+            PreparedStatement batch = null;
+            for (Change change : uncommitted) {
+                PreparedStatement statement;
+                if (change instanceof SaveRegion save) {
+                    statement = upsertRegion;
+                    bindRegion(statement, save.region().name(), save.region().worldName(),
+                            save.region().minX(), save.region().minY(), save.region().minZ(),
+                            save.region().maxX(), save.region().maxY(), save.region().maxZ());
+                } else if (change instanceof DeleteRegion delete) {
+                    statement = deleteRegion;
+                    statement.setString(1, delete.name());
+                } else {
+                    SaveBinding binding = (SaveBinding) change;
+                    statement = upsertBinding;
+                    statement.setString(1, binding.regionName());
+                    statement.setString(2, binding.profileName());
+                }
+
+                if (batch != null && batch != statement) batch.executeBatch();
+                statement.addBatch();
+                batch = statement;
+            }
+            if (batch != null) batch.executeBatch();
+            connection.commit();
+            uncommitted.clear();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void writeAll(RegionSnapshot regions, Map<String, String> bindings) throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement clear = connection.createStatement();
+             PreparedStatement upsertRegion = connection.prepareStatement(UPSERT_REGION);
+             PreparedStatement upsertBinding = connection.prepareStatement(UPSERT_BINDING)) {
+            clear.execute("DELETE FROM regions");
+            clear.execute("DELETE FROM region_sounds");
+
+            int rows = 0;
+            for (SoundRegion region : regions.regions().values()) {
+                bindRegion(upsertRegion, region.name(), region.worldName(),
+                        region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ());
+                rows = addBatch(upsertRegion, rows);
+            }
+            for (DormantRegions world : regions.dormantWorlds().values()) {
+                for (int i = 0; i < world.size(); i++) {
+                    bindRegion(upsertRegion, world.name(i), world.worldName(),
+                            world.min(i).getX(), world.min(i).getY(), world.min(i).getZ(),
+                            world.max(i).getX(), world.max(i).getY(), world.max(i).getZ());
+                    rows = addBatch(upsertRegion, rows);
+                }
+            }
+            upsertRegion.executeBatch();
+
+            rows = 0;
+            for (Map.Entry<String, String> binding : bindings.entrySet()) {
+                upsertBinding.setString(1, binding.getKey());
+                upsertBinding.setString(2, binding.getValue());
+                rows = addBatch(upsertBinding, rows);
+            }
+            upsertBinding.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static int addBatch(PreparedStatement statement, int rows) throws SQLException {
+        statement.addBatch();
+        if (++rows % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+        return rows;
+    }
+
+    private static void bindRegion(PreparedStatement statement, String name, @Nullable String worldName,
+                                   double minX, double minY, double minZ, double maxX, double maxY, double maxZ) throws SQLException {
+        statement.setString(1, name);
+        statement.setString(2, worldName);
+        statement.setDouble(3, minX);
+        statement.setDouble(4, minY);
+        statement.setDouble(5, minZ);
+        statement.setDouble(6, maxX);
+        statement.setDouble(7, maxY);
+        statement.setDouble(8, maxZ);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,256 @@
+package org.bruno.sonus.storage;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bruno.sonus.utils.Constants;
+import org.bruno.sonus.utils.RegionTree;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.util.Vector;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Stores regions in regions.yml and region sound bindings in the region-sounds section of sounds.yml.
+ * <p>
+ * A change only updates its own entry in the in-memory document; the whole file is then written
+ * by the background writer, which coalesces changes made in quick succession.
+ */
+public class YamlRegionStorage implements RegionStorage {
+    private final FileHelper fileHelper;
+    private final Logger logger;
+
+    // Changes not yet applied to the in-memory regions.yml, keyed by lower-case region name.
+    // The background writer applies only these entries instead of rebuilding the whole section.
+    private final Map<String, PendingChange> pendingChanges = new ConcurrentHashMap<>();
+    // Bindings changed since the last save, keyed by lower-case region name.
+    private final Map<String, String> pendingBindings = new ConcurrentHashMap<>();
+    // The key each binding is stored under in sounds.yml, which may not be lower-case.
+    private volatile Map<String, String> bindingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * A change to one region waiting to be written to regions.yml.
+     * @param removedName The name (as stored in the file) of a region to remove, or null.
+     * @param region      The region to write, or null if the region was only removed.
+     */
+    private record PendingChange(@Nullable String removedName, @Nullable SoundRegion region) {}
+
+    /**
+     * A region as read from regions.yml, before its world is looked up.
+     */
+    private record RegionEntry(String name, String worldName, Vector pos1, Vector pos2) {}
+
+    public YamlRegionStorage(FileHelper fileHelper, Logger logger) {
+        this.fileHelper = fileHelper;
+        this.logger = logger;
+    }
+
+    @Override
+    public String name() {
+        return Constants.Files.REGIONS_FILE;
+    }
+
+    @Override
+    public RegionSnapshot loadRegions() {
+        // Taken before the document is copied: a change the writer applies in between is then in one or
+        // the other, and applying it twice does no harm.
+        List<PendingChange> changes = new ArrayList<>(pendingChanges.values());
+        RegionSnapshot loaded = parseRegions();
+
+        // Changes made since the last save are not in the file yet, so apply them on top.
+        for (PendingChange change : changes) {
+            if (change.removedName() != null) loaded = loaded.withoutDormant(change.removedName());
+            if (change.region() != null) loaded = loaded.withDormant(change.region());
+        }
+        return loaded;
+    }
+
+    private RegionSnapshot parseRegions() {
+        // The background writer keeps updating the live document, so parse a private copy of it.
+        FileConfiguration config = fileHelper.copyRegionsConfig();
+        ConfigurationSection regionsSection = config.getConfigurationSection("regions");
+        if (regionsSection == null) {
+            logger.info("No regions found in regions.yml. Ready to create new ones!");
+            return RegionSnapshot.EMPTY;
+        }
+
+        // Nothing else can see the copy, so large files are split across the fork-join pool.
+        List<String> regionNames = new ArrayList<>(regionsSection.getKeys(false));
+        Stream<String> names = regionNames.size() >= RegionTree.PARALLEL_THRESHOLD ? regionNames.parallelStream() : regionNames.stream();
+        List<RegionEntry> entries = names.map(regionName -> parseRegion(config, regionName))
+                .filter(Objects::nonNull)
+                .toList();
+
+        // Every region stays dormant, keyed by world name, until the RegionHandler activates its world.
+        Map<String, DormantRegions.Builder> dormant = new LinkedHashMap<>();
+        for (RegionEntry entry : entries) {
+            dormant.computeIfAbsent(entry.worldName(), DormantRegions.Builder::new).add(entry.name(), entry.pos1(), entry.pos2());
+            logger.fine("Region " + entry.name() + " with vectors " + entry.pos1() + " | " + entry.pos2() + " read");
+        }
+        return RegionSnapshot.of(0, List.of(), dormant.values().stream().map(DormantRegions.Builder::build).toList());
+    }
+
+    @Nullable
+    private RegionEntry parseRegion(FileConfiguration config, String regionName) {
+        String path = "regions." + regionName;
+        String worldName = config.getString(path + ".world");
+
+        if (worldName == null || worldName.isEmpty()) {
+            logger.warning("Could not load region '" + regionName + "' because its world is not specified.");
+            return null;
+        }
+
+        // Reverted to the simpler getVector() logic
+        Vector pos1 = config.getVector(path + ".pos1");
+        Vector pos2 = config.getVector(path + ".pos2");
+
+        if (pos1 == null || pos2 == null) {
+            logger.warning("Could not load region '" + regionName + "' due to invalid position data in regions.yml.");
+            return null;
+        }
+        return new RegionEntry(regionName, worldName, pos1, pos2);
+    }
+
+    @Override
+    public Map<String, String> loadBindings() {
+        // Taken before the document is copied, like the pending region changes in loadRegions.
+        Map<String, String> changed = new HashMap<>(pendingBindings);
+        Map<String, String> bindings = new HashMap<>();
+        Map<String, String> keys = new ConcurrentHashMap<>();
+
+        // The background writer keeps updating the live document, so read a private copy of it.
+        ConfigurationSection regionSoundsSection = fileHelper.copySoundsConfig().getConfigurationSection("region-sounds");
+        if (regionSoundsSection != null) {
+            for (String regionName : regionSoundsSection.getKeys(false)) {
+                bindings.put(regionName.toLowerCase(), regionSoundsSection.getString(regionName).toUpperCase());
+                keys.put(regionName.toLowerCase(), regionName);
+            }
+        }
+        this.bindingKeys = keys;
+
+        // Bindings changed since the last save are not in the file yet.
+        bindings.putAll(changed);
+        return bindings;
+    }
+
+    @Override
+    public void saveRegion(RegionSnapshot snapshot, SoundRegion region) {
+        queueChange(region.name(), new PendingChange(null, region));
+    }
+
+    @Override
+    public void deleteRegion(RegionSnapshot snapshot, String name) {
+        queueChange(name, new PendingChange(name, null));
+    }
+
+    private void queueChange(String name, PendingChange change) {
+        // A region deleted and defined again before the save must still drop its old entry.
+        pendingChanges.merge(name.toLowerCase(), change, (older, newer) -> new PendingChange(
+                older.removedName() != null ? older.removedName() : newer.removedName(), newer.region()));
+        fileHelper.queueRegionsSave(this::writePendingChanges);
+    }
+
+    @Override
+    public void saveBinding(String regionName, String profileName) {
+        pendingBindings.put(regionName, profileName);
+        fileHelper.queueSoundsSave(this::writePendingBindings);
+    }
+
+    @Override
+    public void saveAll(RegionSnapshot regions, Map<String, String> bindings) throws IOException {
+        fileHelper.saveRegionsConfig(config -> writeRegionsSection(config, regions));
+        saveBindings(bindings);
+    }
+
+    /**
+     * Rewrites only the region-sounds section of sounds.yml, on the calling thread.
+     */
+    void saveBindings(Map<String, String> bindings) throws IOException {
+        fileHelper.saveSoundsConfig(config -> writeBindingsSection(config, bindings));
+    }
+
+    /**
+     * Rewrites the regions section of the regions config.
+     */
+    private void writeRegionsSection(FileConfiguration config, RegionSnapshot regions) {
+        // Set the 'regions' section to null to clear it before saving
+        config.set("regions", null);
+
+        for (SoundRegion region : regions.regions().values()) {
+            writeRegion(config, region);
+        }
+        for (DormantRegions world : regions.dormantWorlds().values()) {
+            for (int i = 0; i < world.size(); i++) {
+                writeRegion(config, world.name(i), world.worldName(), world.min(i), world.max(i));
+            }
+        }
+        logger.info("Successfully saved " + regions.size() + " sound regions.");
+    }
+
+    /**
+     * Applies only the regions that changed since the last save to the regions config.
+     * Runs on the storage writer thread.
+     */
+    private void writePendingChanges(FileConfiguration config) {
+        for (String key : pendingChanges.keySet()) {
+            PendingChange change = pendingChanges.remove(key);
+            if (change == null) continue;
+
+            if (change.removedName() != null) {
+                config.set("regions." + change.removedName(), null);
+            }
+            if (change.region() != null) {
+                writeRegion(config, change.region());
+            }
+        }
+    }
+
+    private static void writeRegion(FileConfiguration config, SoundRegion region) {
+        // We save the original corners, not the calculated min/max, for easier editing.
+        writeRegion(config, region.name(), region.worldName(), region.min(), region.max());
+    }
+
+    private static void writeRegion(FileConfiguration config, String name, String worldName, Vector pos1, Vector pos2) {
+        String path = "regions." + name;
+
+        config.set(path + ".world", worldName);
+        config.set(path + ".pos1", pos1);
+        config.set(path + ".pos2", pos2);
+    }
+
+    /**
+     * Rewrites the region-sounds section of the sounds config.
+     */
+    private void writeBindingsSection(FileConfiguration config, Map<String, String> bindings) {
+        config.set("region-sounds", null);
+        bindingKeys.clear();
+        bindings.forEach((regionName, profileName) -> config.set("region-sounds." + regionName, profileName));
+    }
+
+    /**
+     * Applies only the bindings that changed since the last save to the sounds config.
+     * Runs on the storage writer thread.
+     */
+    private void writePendingBindings(FileConfiguration config) {
+        for (String regionKey : pendingBindings.keySet()) {
+            String profileName = pendingBindings.remove(regionKey);
+            if (profileName == null) continue;
+
+            // Replace the binding under the key it was loaded from, rather than adding a second one.
+            String storedKey = bindingKeys.getOrDefault(regionKey, regionKey);
+            config.set("region-sounds." + storedKey, profileName);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.bruno.sonus.tools;
+
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.utils.OverlapAnalyzer;
+import org.bruno.sonus.utils.RegionTransferFile;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.util.Vector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the overlap analysis without a server, for example in a build pipeline.
+ * <pre>
+ * java -cp Sonus.jar org.bruno.sonus.tools.OverlapCheck regions.ndjson
+ * java -cp Sonus.jar:paper-api.jar org.bruno.sonus.tools.OverlapCheck regions.yml
+ * </pre>
+ * Reads regions.yml, or a file written by {@code /so export}. Reading regions.yml needs the
+ * server API on the class path; the export formats do not.
+ * <p>
+ * Exits with 0 if no regions partly overlap, 1 if some do, and 2 if the file cannot be read.
+ * Regions nested inside larger ones are listed but do not fail the check.
+ */
+public final class OverlapCheck {
+    private static final UUID NO_WORLD = new UUID(0, 0);
+
+    private OverlapCheck() {}
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: OverlapCheck <regions.yml|regions.ndjson|regions.csv>");
+            System.exit(2);
+        }
+
+        List<SoundRegion> regions;
+        try {
+            regions = read(Path.of(args[0]));
+        } catch (Exception e) {
+            System.err.println("Could not read " + args[0] + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        List<OverlapAnalyzer.Overlap> overlaps = OverlapAnalyzer.analyze(regions);
+        int problems = 0;
+        for (OverlapAnalyzer.Overlap overlap : overlaps) {
+            if (overlap.kind() != OverlapAnalyzer.Kind.NESTED) problems++;
+            System.out.println(overlap.kind() + "\t" + overlap.first().worldName() + "\t"
+                    + overlap.first().name() + "\t" + overlap.second().name());
+        }
+        System.out.println("Checked " + regions.size() + " regions: " + problems + " overlapping, "
+                + (overlaps.size() - problems) + " nested.");
+        System.exit(problems > 0 ? 1 : 0);
+    }
+
+    private static List<SoundRegion> read(Path file) throws Exception {
+        RegionTransferFile.Format format = RegionTransferFile.Format.forFile(file.getFileName().toString());
+        return (format != null) ? readTransferFile(file, format) : RegionsYaml.read(file);
+    }
+
+    private static List<SoundRegion> readTransferFile(Path file, RegionTransferFile.Format format) throws IOException {
+        List<SoundRegion> regions = new ArrayList<>();
+        try (RegionTransferFile.Reader reader = RegionTransferFile.open(file, format)) {
+            while (true) {
+                RegionTransferFile.Row row;
+                try {
+                    row = reader.next();
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping line " + reader.lineNumber() + ": " + e.getMessage());
+                    continue;
+                }
+                if (row == null) return regions;
+                regions.add(region(row.name(), row.worldName(), row.minX(), row.minY(), row.minZ(), row.maxX(), row.maxY(), row.maxZ()));
+            }
+        }
+    }
+
+    private static SoundRegion region(String name, String worldName, double x1, double y1, double z1, double x2, double y2, double z2) {
+        // Only the world name matters here; regions are grouped by it
+        return new SoundRegion(name, NO_WORLD, worldName,
+                Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2));
+    }
+
+    /**
+     * Reads regions.yml. Kept apart so the server API is only loaded when a YAML file is checked.
+     */
+    private static final class RegionsYaml {
+        static List<SoundRegion> read(Path file) throws IOException, InvalidConfigurationException {
+            YamlConfiguration config = new YamlConfiguration();
+            config.loadFromString(Files.readString(file));
+
+            List<SoundRegion> regions = new ArrayList<>();
+            ConfigurationSection regionsSection = config.getConfigurationSection("regions");
+            if (regionsSection == null) return regions;
+
+            for (String regionName : regionsSection.getKeys(false)) {
+                String path = "regions." + regionName;
+                String worldName = config.getString(path + ".world");
+                Vector pos1 = config.getVector(path + ".pos1");
+                Vector pos2 = config.getVector(path + ".pos2");
+                if (worldName == null || pos1 == null || pos2 == null) {
+                    System.err.println("Skipping region '" + regionName + "': missing world or positions.");
+                    continue;
+                }
+                regions.add(region(regionName, worldName, pos1.getX(), pos1.getY(), pos1.getZ(), pos2.getX(), pos2.getY(), pos2.getZ()));
+            }
+            return regions;
+        }
+    }
+}
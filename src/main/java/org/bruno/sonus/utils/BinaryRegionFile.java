@@ -0,0 +1,217 @@
+package org.bruno.sonus.utils;
+
+import org.bruno.sonus.data.DormantRegions;
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.helpers.FileHelper;
+import org.bukkit.util.Vector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and writes regions in a compact binary file, for servers with a very large number of regions.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header        magic, version, world count, region count, string table size   (5 ints)
+ * world table   world UUID (2 longs), offset of the world name                 (20 bytes each)
+ * region table  offset of the region name, world index, min x/y/z, max x/y/z   (56 bytes each)
+ * string table  [unsigned short length][UTF-8 bytes], each distinct string stored once
+ * </pre>
+ * Worlds are matched by name when the regions are published, so reading returns every region dormant.
+ * The UUID of a world that was not loaded when the file was written is stored as zero.
+ * The file is read into a single buffer in one pass, and regions are decoded from it straight into
+ * packed dormant regions, with no intermediate document tree. It is not memory-mapped:
+ * a mapping stays open until the buffer is garbage collected, and on Windows an open mapping makes
+ * the rename in {@link FileHelper#writeAtomically} fail.
+ */
+public final class BinaryRegionFile {
+    private static final int MAGIC = 0x534E5247; // "SNRG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int WORLD_BYTES = 2 * Long.BYTES + Integer.BYTES;
+    private static final int REGION_BYTES = 2 * Integer.BYTES + 6 * Double.BYTES;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    private static final UUID UNKNOWN_WORLD = new UUID(0, 0);
+
+    private BinaryRegionFile() {}
+
+    /**
+     * Reads every region from a binary region file, without looking up their worlds.
+     * @param path The file to read.
+     * @return The regions, all kept dormant by world name.
+     * @throws IOException If the file cannot be read or is not a valid region file.
+     */
+    public static RegionSnapshot read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException(path.getFileName() + " is too large.");
+
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException(path.getFileName() + " was truncated while reading.");
+            }
+            buffer.flip();
+        }
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException(path.getFileName() + " is truncated or corrupt.", e);
+        }
+    }
+
+    private static RegionSnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) throw new IOException("Not a Sonus region file.");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("Unsupported region file version " + version + ".");
+
+        int worldCount = buffer.getInt();
+        int regionCount = buffer.getInt();
+        int stringTableSize = buffer.getInt();
+
+        long expectedSize = HEADER_BYTES + (long) worldCount * WORLD_BYTES + (long) regionCount * REGION_BYTES + stringTableSize;
+        if (worldCount < 0 || regionCount < 0 || stringTableSize < 0 || expectedSize != buffer.limit()) {
+            throw new IOException("Region file size does not match its header.");
+        }
+        int regionTableStart = HEADER_BYTES + worldCount * WORLD_BYTES;
+        int stringTableStart = regionTableStart + regionCount * REGION_BYTES;
+
+        DormantRegions.Builder[] dormant = new DormantRegions.Builder[worldCount];
+        for (int i = 0; i < worldCount; i++) {
+            int entry = HEADER_BYTES + i * WORLD_BYTES;
+            dormant[i] = new DormantRegions.Builder(readString(buffer, stringTableStart, buffer.getInt(entry + 2 * Long.BYTES)));
+        }
+
+        for (int i = 0; i < regionCount; i++) {
+            int record = regionTableStart + i * REGION_BYTES;
+            int worldIndex = buffer.getInt(record + Integer.BYTES);
+            String name = readString(buffer, stringTableStart, buffer.getInt(record));
+            int coordinates = record + 2 * Integer.BYTES;
+            double minX = buffer.getDouble(coordinates), minY = buffer.getDouble(coordinates + 8), minZ = buffer.getDouble(coordinates + 16);
+            double maxX = buffer.getDouble(coordinates + 24), maxY = buffer.getDouble(coordinates + 32), maxZ = buffer.getDouble(coordinates + 40);
+            dormant[worldIndex].add(name, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        List<DormantRegions> dormantWorlds = new ArrayList<>();
+        for (DormantRegions.Builder builder : dormant) {
+            if (!builder.isEmpty()) dormantWorlds.add(builder.build());
+        }
+        return RegionSnapshot.of(0, List.of(), dormantWorlds);
+    }
+
+    private static String readString(ByteBuffer buffer, int stringTableStart, int offset) {
+        int position = stringTableStart + offset;
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        byte[] bytes = new byte[length];
+        buffer.get(position + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes regions to a binary region file, atomically replacing it.
+     * @param path    The file to write.
+     * @param regions The regions of loaded worlds to write.
+     * @param dormant The regions of worlds that are not loaded to write.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(Path path, Collection<SoundRegion> regions, Collection<DormantRegions> dormant) throws IOException {
+        StringTable strings = new StringTable();
+        Map<String, Integer> worldIndexes = new LinkedHashMap<>();
+        Map<String, UUID> worldIds = new HashMap<>();
+        int regionCount = regions.size();
+        for (SoundRegion region : regions) {
+            if (worldIndexes.putIfAbsent(region.worldName(), worldIndexes.size()) == null) {
+                worldIds.put(region.worldName(), region.worldId());
+            }
+        }
+        for (DormantRegions world : dormant) {
+            if (worldIndexes.putIfAbsent(world.worldName(), worldIndexes.size()) == null) {
+                worldIds.put(world.worldName(), UNKNOWN_WORLD);
+            }
+            regionCount += world.size();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + worldIndexes.size() * WORLD_BYTES + regionCount * REGION_BYTES);
+        buffer.position(HEADER_BYTES);
+
+        for (String worldName : worldIndexes.keySet()) {
+            UUID worldId = worldIds.get(worldName);
+            buffer.putLong(worldId.getMostSignificantBits());
+            buffer.putLong(worldId.getLeastSignificantBits());
+            buffer.putInt(strings.offsetOf(worldName));
+        }
+
+        for (SoundRegion region : regions) {
+            buffer.putInt(strings.offsetOf(region.name()));
+            buffer.putInt(worldIndexes.get(region.worldName()));
+            buffer.putDouble(region.minX()).putDouble(region.minY()).putDouble(region.minZ());
+            buffer.putDouble(region.maxX()).putDouble(region.maxY()).putDouble(region.maxZ());
+        }
+        for (DormantRegions world : dormant) {
+            int worldIndex = worldIndexes.get(world.worldName());
+            for (int i = 0; i < world.size(); i++) {
+                Vector min = world.min(i);
+                Vector max = world.max(i);
+                buffer.putInt(strings.offsetOf(world.name(i)));
+                buffer.putInt(worldIndex);
+                buffer.putDouble(min.getX()).putDouble(min.getY()).putDouble(min.getZ());
+                buffer.putDouble(max.getX()).putDouble(max.getY()).putDouble(max.getZ());
+            }
+        }
+
+        byte[] stringTable = strings.toByteArray();
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, worldIndexes.size())
+                .putInt(12, regionCount)
+                .putInt(16, stringTable.length);
+
+        byte[] data = new byte[buffer.capacity() + stringTable.length];
+        System.arraycopy(buffer.array(), 0, data, 0, buffer.capacity());
+        System.arraycopy(stringTable, 0, data, buffer.capacity(), stringTable.length);
+        FileHelper.writeAtomically(path, data);
+    }
+
+    /**
+     * Collects distinct strings into the string table, remembering where each one starts.
+     */
+    private static final class StringTable {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private int offsetOf(String value) {
+            Integer existing = offsets.get(value);
+            if (existing != null) return existing;
+
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("Name is too long to store: " + value);
+            }
+            int offset = bytes.size();
+            bytes.write(encoded.length >>> 8);
+            bytes.write(encoded.length);
+            bytes.write(encoded, 0, encoded.length);
+            offsets.put(value, offset);
+            return offset;
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -13,6 +13,9 @@ public final class Constants {
         public static final String REGIONS_FILE = "regions.yml";
         public static final String SOUNDS_FILE = "sounds.yml";
         public static final String MESSAGES_FILE = "messages.yml";
+        public static final String REGIONS_JOURNAL_FILE = "regions.journal";
+        public static final String REGIONS_BINARY_FILE = "regions.bin";
+        public static final String DATABASE_FILE = "sonus.db";
     }
 
     public static final class Permissions {
@@ -30,6 +33,10 @@ public final class Constants {
         public static final String CMD_LIST = BASE + "command.list";
         public static final String CMD_WAND = BASE + "command.wand";
         public static final String CMD_SET = BASE + "command.set";
+        public static final String CMD_CONVERT = BASE + "command.convert";
+        public static final String CMD_IMPORT = BASE + "command.import";
+        public static final String CMD_EXPORT = BASE + "command.export";
+        public static final String CMD_CHECK = BASE + "command.check";
 
         public static final String NOTIFY_UPDATE = BASE + "update.notify";
     }
@@ -0,0 +1,138 @@
+package org.bruno.sonus.utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a set of files in one directory and reports when one of them changes.
+ * <p>
+ * Editors and sync tools often write a file in several steps, each of which raises its own
+ * event. Events are therefore debounced per file: a change is only reported once the file has
+ * been quiet for the configured delay. Changes are reported on a background thread.
+ */
+public final class FileWatcher {
+    private final Path directory;
+    private final Set<String> fileNames;
+    private final long delayMillis;
+    private final Consumer<String> onChange;
+    private final Logger logger;
+
+    private final ScheduledExecutorService scheduler;
+    // The pending report for each file, pushed back by every further event.
+    private final Map<String, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * @param directory   The directory holding the files.
+     * @param fileNames   The names of the files to watch. Changes to any other file are ignored.
+     * @param delayMillis How long a file must be left alone before its change is reported.
+     * @param onChange    Receives the name of each changed file. Runs on a background thread.
+     * @param logger      The logger used to report failures.
+     */
+    public FileWatcher(Path directory, Set<String> fileNames, long delayMillis, Consumer<String> onChange, Logger logger) {
+        this.directory = directory;
+        this.fileNames = Set.copyOf(fileNames);
+        this.delayMillis = delayMillis;
+        this.onChange = onChange;
+        this.logger = logger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sonus File Watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts watching the directory.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public void start() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        // Files replaced by a rename show up as created rather than modified.
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.watchThread = new Thread(this::watch, "Sonus File Watcher Events");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching. Changes that have not been reported yet are dropped.
+     */
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close(); // Wakes the watch thread, which then exits
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not close the file watcher.", e);
+            }
+        }
+        scheduler.shutdownNow();
+        pending.clear();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost, so any of the files may have changed.
+                        fileNames.forEach(this::schedule);
+                    } else if (event.context() instanceof Path changed && fileNames.contains(changed.toString())) {
+                        schedule(changed.toString());
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warning("Stopped watching " + directory + " because it is no longer accessible.");
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule(String fileName) {
+        ScheduledFuture<?> next;
+        try {
+            next = scheduler.schedule(() -> report(fileName), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return; // Stopped
+        }
+        ScheduledFuture<?> previous = pending.put(fileName, next);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void report(String fileName) {
+        pending.remove(fileName);
+        try {
+            onChange.accept(fileName);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to apply the change to " + fileName + ".", e);
+        }
+    }
+}
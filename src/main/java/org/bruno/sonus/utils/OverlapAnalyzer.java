@@ -0,0 +1,192 @@
+package org.bruno.sonus.utils;
+
+import org.bruno.sonus.data.SoundRegion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Finds every pair of regions that share at least one point, using a sweep-and-prune pass.
+ * <p>
+ * Within each world the regions are sorted by their minimum x, then swept from west to east
+ * while keeping the regions whose x range is still open. Those are held in a min-heap on their
+ * maximum x, so closed ones are dropped without scanning the rest, and in an interval index on z,
+ * so a new region only visits the open regions whose z range also meets its own. The cost is
+ * O(n log n) plus O(log n) for each pair whose x and z ranges overlap; such a pair is then kept
+ * if its y ranges overlap too. Regions side by side in separate z lanes are never compared.
+ * <p>
+ * Has no server dependency, so it can run on any thread and outside the server.
+ */
+public final class OverlapAnalyzer {
+    private static final Comparator<SoundRegion> BY_MIN_X = Comparator.comparingDouble(SoundRegion::minX);
+
+    private OverlapAnalyzer() {}
+
+    /**
+     * How two overlapping regions relate, which decides whether the overlap is likely intended.
+     */
+    public enum Kind {
+        /** One region lies completely inside a larger one. The inner region plays inside it, which is usually intended. */
+        NESTED,
+        /** The regions cross each other. The smaller one plays where they meet, which is often a mistake. */
+        PARTIAL,
+        /** The regions are equally large, so which one plays where they meet only depends on their names. */
+        SAME_SIZE
+    }
+
+    /**
+     * Two regions sharing at least one point.
+     * @param first  The region that plays where both meet.
+     * @param second The other region.
+     */
+    public record Overlap(SoundRegion first, SoundRegion second, Kind kind) {}
+
+    /**
+     * Finds every overlapping pair among the given regions. Regions are grouped into worlds by world name.
+     * @param regions The regions to check.
+     * @return The overlaps, sorted by world and region name.
+     */
+    public static List<Overlap> analyze(Collection<SoundRegion> regions) {
+        Map<String, List<SoundRegion>> byWorld = new HashMap<>();
+        for (SoundRegion region : regions) {
+            byWorld.computeIfAbsent(region.worldName(), name -> new ArrayList<>()).add(region);
+        }
+
+        List<Overlap> overlaps = new ArrayList<>();
+        for (List<SoundRegion> worldRegions : byWorld.values()) {
+            sweep(worldRegions, overlaps);
+        }
+        overlaps.sort(Comparator.comparing((Overlap overlap) -> overlap.first().worldName())
+                .thenComparing(overlap -> overlap.first().name())
+                .thenComparing(overlap -> overlap.second().name()));
+        return overlaps;
+    }
+
+    private static void sweep(List<SoundRegion> worldRegions, List<Overlap> overlaps) {
+        SoundRegion[] sorted = worldRegions.toArray(SoundRegion[]::new);
+        if (sorted.length >= RegionTree.PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(sorted, BY_MIN_X);
+        } else {
+            Arrays.sort(sorted, BY_MIN_X);
+        }
+
+        // Regions whose x range may still reach the regions to come, soonest to close first
+        PriorityQueue<Integer> open = new PriorityQueue<>(Comparator.comparingDouble(index -> sorted[index].maxX()));
+        ZIndex openByZ = new ZIndex(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            SoundRegion region = sorted[i];
+            // Bounds are inclusive, so a region ending exactly where this one starts still touches it
+            while (!open.isEmpty() && sorted[open.peek()].maxX() < region.minX()) {
+                openByZ.remove(open.poll());
+            }
+            openByZ.forEachOverlapping(region, other -> {
+                if (other.minY() <= region.maxY() && region.minY() <= other.maxY()) {
+                    overlaps.add(classify(region, other));
+                }
+            });
+            openByZ.add(i);
+            open.add(i);
+        }
+    }
+
+    /**
+     * The open regions of a sweep, indexed by their z range.
+     * <p>
+     * Every region of the world is placed once, in order of minimum z, at a leaf of a segment tree
+     * laid out in an array. Each node holds the largest maximum z among the open regions below it,
+     * so adding or removing a region only updates the path to its leaf, and a search skips every
+     * subtree that ends before the searched range or starts after it.
+     */
+    private static final class ZIndex {
+        private final SoundRegion[] byMinZ;
+        // The leaf of each region, by its index in the array given to the constructor
+        private final int[] leafOf;
+        private final int leafCount;
+        // Largest maximum z of the open regions below each node; node 1 is the root, node i has children 2i and 2i+1
+        private final double[] maxZ;
+
+        private ZIndex(SoundRegion[] regions) {
+            Integer[] order = new Integer[regions.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingDouble(index -> regions[index].minZ()));
+
+            int leaves = 1;
+            while (leaves < regions.length) leaves <<= 1;
+            this.leafCount = leaves;
+            this.byMinZ = new SoundRegion[regions.length];
+            this.leafOf = new int[regions.length];
+            for (int leaf = 0; leaf < order.length; leaf++) {
+                byMinZ[leaf] = regions[order[leaf]];
+                leafOf[order[leaf]] = leaf;
+            }
+            this.maxZ = new double[2 * leaves];
+            Arrays.fill(maxZ, Double.NEGATIVE_INFINITY);
+        }
+
+        private void add(int region) {
+            int leaf = leafOf[region];
+            update(leaf, byMinZ[leaf].maxZ());
+        }
+
+        private void remove(int region) {
+            update(leafOf[region], Double.NEGATIVE_INFINITY);
+        }
+
+        private void update(int leaf, double value) {
+            int node = leafCount + leaf;
+            maxZ[node] = value;
+            for (node >>= 1; node > 0; node >>= 1) {
+                maxZ[node] = Math.max(maxZ[2 * node], maxZ[2 * node + 1]);
+            }
+        }
+
+        /**
+         * Passes every open region whose z range meets the given region's to the consumer.
+         */
+        private void forEachOverlapping(SoundRegion region, Consumer<SoundRegion> consumer) {
+            collect(1, 0, region.minZ(), region.maxZ(), consumer);
+        }
+
+        private void collect(int node, int firstLeaf, double minZ, double maxZ, Consumer<SoundRegion> consumer) {
+            // Skip subtrees that hold no open region reaching minZ, or whose regions all start after maxZ
+            if (this.maxZ[node] < minZ || firstLeaf >= byMinZ.length || byMinZ[firstLeaf].minZ() > maxZ) return;
+            if (node >= leafCount) {
+                consumer.accept(byMinZ[firstLeaf]);
+                return;
+            }
+
+            int half = leafCount / Integer.highestOneBit(node) / 2;
+            collect(2 * node, firstLeaf, minZ, maxZ, consumer);
+            collect(2 * node + 1, firstLeaf + half, minZ, maxZ, consumer);
+        }
+    }
+
+    private static Overlap classify(SoundRegion a, SoundRegion b) {
+        // Order the pair the way the region lookup does, so the first one is the one that plays
+        SoundRegion first = RegionTree.MOST_SPECIFIC_FIRST.compare(a, b) <= 0 ? a : b;
+        SoundRegion second = (first == a) ? b : a;
+
+        Kind kind;
+        if (first.volume() == second.volume()) {
+            kind = Kind.SAME_SIZE;
+        } else if (encloses(second, first)) {
+            kind = Kind.NESTED;
+        } else {
+            kind = Kind.PARTIAL;
+        }
+        return new Overlap(first, second, kind);
+    }
+
+    private static boolean encloses(SoundRegion outer, SoundRegion inner) {
+        return outer.minX() <= inner.minX() && inner.maxX() <= outer.maxX()
+                && outer.minY() <= inner.minY() && inner.maxY() <= outer.maxY()
+                && outer.minZ() <= inner.minZ() && inner.maxZ() <= outer.maxZ();
+    }
+}
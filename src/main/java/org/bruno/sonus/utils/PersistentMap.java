@@ -0,0 +1,403 @@
+package org.bruno.sonus.utils;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable hash map that is updated by building a new version, stored as a hash array mapped trie.
+ * <p>
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} copy only the few nodes on the path to
+ * the changed key and share everything else with the previous version, so a change costs
+ * O(log32 n) instead of copying the whole map. Every version can be read from any thread.
+ * <p>
+ * The {@link Map} mutators throw {@link UnsupportedOperationException}. Null keys and values are not supported.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new Branch(0, new Object[0]), 0);
+
+    // Always a branch; its slots hold leaves, branches and collision nodes.
+    private final Branch root;
+    private final int size;
+
+    private PersistentMap(Branch root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Builds a map holding the entries of another one in a single pass.
+     * @return The map itself if it already is a PersistentMap.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap<?, ?> persistent) return (PersistentMap<K, V>) persistent;
+        if (map.isEmpty()) return empty();
+
+        List<Leaf> leaves = new ArrayList<>(map.size());
+        map.forEach((key, value) -> leaves.add(new Leaf(hash(key), Objects.requireNonNull(key), Objects.requireNonNull(value))));
+        return new PersistentMap<>((Branch) build(leaves, 0), leaves.size());
+    }
+
+    /**
+     * @return A map with the given key set to the given value, or this map if it already was.
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        Leaf leaf = new Leaf(hash(key), Objects.requireNonNull(key), Objects.requireNonNull(value));
+        boolean adding = !containsKey(key);
+        Object updated = put(root, leaf, 0);
+        return (updated == root) ? this : new PersistentMap<>((Branch) updated, adding ? size + 1 : size);
+    }
+
+    /**
+     * @return A map without the given key, or this map if it did not contain it.
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (key == null) return this;
+        Object updated = remove(root, hash(key), key, 0);
+        if (updated == root) return this;
+        return new PersistentMap<>((updated != null) ? (Branch) updated : empty().root, size - 1);
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) return null;
+        int hash = hash(key);
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof Branch branch) {
+                int bit = bit(hash, shift);
+                if ((branch.bitmap & bit) == 0) return null;
+                node = branch.slots[branch.index(bit)];
+            } else if (node instanceof Leaf leaf) {
+                return (leaf.hash == hash && leaf.key.equals(key)) ? (V) leaf.value : null;
+            } else {
+                Collision collision = (Collision) node;
+                if (collision.hash != hash) return null;
+                for (Leaf leaf : collision.leaves) {
+                    if (leaf.key.equals(key)) return (V) leaf.value;
+                }
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    //<editor-fold desc="Trie">
+
+    private static int hash(Object key) {
+        return key.hashCode();
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Builds the subtree holding the given leaves, which all share the hash bits below {@code shift}.
+     */
+    private static Object build(List<Leaf> leaves, int shift) {
+        if (leaves.size() == 1 && shift > 0) return leaves.get(0);
+
+        int firstHash = leaves.get(0).hash;
+        if (shift > 0 && leaves.stream().allMatch(leaf -> leaf.hash == firstHash)) {
+            return new Collision(firstHash, leaves.toArray(new Leaf[0]));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Leaf>[] buckets = new List[1 << BITS];
+        int bitmap = 0;
+        for (Leaf leaf : leaves) {
+            int fragment = (leaf.hash >>> shift) & MASK;
+            if (buckets[fragment] == null) buckets[fragment] = new ArrayList<>();
+            buckets[fragment].add(leaf);
+            bitmap |= 1 << fragment;
+        }
+
+        Object[] slots = new Object[Integer.bitCount(bitmap)];
+        int index = 0;
+        for (List<Leaf> bucket : buckets) {
+            if (bucket != null) slots[index++] = build(bucket, shift + BITS);
+        }
+        return new Branch(bitmap, slots);
+    }
+
+    /**
+     * Puts a leaf into a subtree, returning the same node if nothing changed.
+     */
+    private static Object put(Object node, Leaf leaf, int shift) {
+        if (node instanceof Branch branch) {
+            int bit = bit(leaf.hash, shift);
+            int index = branch.index(bit);
+            if ((branch.bitmap & bit) == 0) {
+                Object[] slots = new Object[branch.slots.length + 1];
+                System.arraycopy(branch.slots, 0, slots, 0, index);
+                slots[index] = leaf;
+                System.arraycopy(branch.slots, index, slots, index + 1, branch.slots.length - index);
+                return new Branch(branch.bitmap | bit, slots);
+            }
+
+            Object child = branch.slots[index];
+            Object updated = put(child, leaf, shift + BITS);
+            if (updated == child) return branch;
+            Object[] slots = branch.slots.clone();
+            slots[index] = updated;
+            return new Branch(branch.bitmap, slots);
+        }
+
+        if (node instanceof Leaf existing) {
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return (existing.value == leaf.value) ? existing : leaf;
+            }
+            if (existing.hash == leaf.hash) {
+                return new Collision(leaf.hash, new Leaf[]{existing, leaf});
+            }
+            return merge(existing, existing.hash, leaf, shift);
+        }
+
+        Collision collision = (Collision) node;
+        if (collision.hash != leaf.hash) {
+            return merge(collision, collision.hash, leaf, shift);
+        }
+        for (int i = 0; i < collision.leaves.length; i++) {
+            if (!collision.leaves[i].key.equals(leaf.key)) continue;
+            if (collision.leaves[i].value == leaf.value) return collision;
+            Leaf[] leaves = collision.leaves.clone();
+            leaves[i] = leaf;
+            return new Collision(leaf.hash, leaves);
+        }
+        Leaf[] leaves = Arrays.copyOf(collision.leaves, collision.leaves.length + 1);
+        leaves[leaves.length - 1] = leaf;
+        return new Collision(leaf.hash, leaves);
+    }
+
+    /**
+     * Builds the branch holding an existing node and a new leaf with a different hash.
+     */
+    private static Branch merge(Object existing, int existingHash, Leaf leaf, int shift) {
+        int existingFragment = (existingHash >>> shift) & MASK;
+        int leafFragment = (leaf.hash >>> shift) & MASK;
+        if (existingFragment == leafFragment) {
+            return new Branch(1 << existingFragment, new Object[]{merge(existing, existingHash, leaf, shift + BITS)});
+        }
+        Object[] slots = (existingFragment < leafFragment) ? new Object[]{existing, leaf} : new Object[]{leaf, existing};
+        return new Branch((1 << existingFragment) | (1 << leafFragment), slots);
+    }
+
+    /**
+     * Removes a key from a subtree. Returns the same node if the key was not found, or null if the
+     * node became empty. A branch left with a single leaf is replaced by that leaf, except at the root.
+     */
+    @Nullable
+    private static Object remove(Object node, int hash, Object key, int shift) {
+        if (node instanceof Branch branch) {
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) return branch;
+
+            int index = branch.index(bit);
+            Object child = branch.slots[index];
+            Object updated = remove(child, hash, key, shift + BITS);
+            if (updated == child) return branch;
+
+            if (updated != null) {
+                if (shift > 0 && branch.slots.length == 1 && !(updated instanceof Branch)) return updated;
+                Object[] slots = branch.slots.clone();
+                slots[index] = updated;
+                return new Branch(branch.bitmap, slots);
+            }
+            if (branch.slots.length == 1) return null;
+
+            Object[] slots = new Object[branch.slots.length - 1];
+            System.arraycopy(branch.slots, 0, slots, 0, index);
+            System.arraycopy(branch.slots, index + 1, slots, index, slots.length - index);
+            if (shift > 0 && slots.length == 1 && !(slots[0] instanceof Branch)) return slots[0];
+            return new Branch(branch.bitmap & ~bit, slots);
+        }
+
+        if (node instanceof Leaf leaf) {
+            return (leaf.hash == hash && leaf.key.equals(key)) ? null : leaf;
+        }
+
+        Collision collision = (Collision) node;
+        if (collision.hash != hash) return collision;
+        for (int i = 0; i < collision.leaves.length; i++) {
+            if (!collision.leaves[i].key.equals(key)) continue;
+            if (collision.leaves.length == 2) return collision.leaves[1 - i];
+
+            Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+            System.arraycopy(collision.leaves, 0, leaves, 0, i);
+            System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+            return new Collision(hash, leaves);
+        }
+        return collision;
+    }
+
+    //</editor-fold>
+
+    /**
+     * An entry of the map.
+     */
+    private static final class Leaf implements Entry<Object, Object> {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        private Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry && key.equals(entry.getKey()) && value.equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * An inner node. The bitmap has one bit set per used slot, and the slots are packed in bit order.
+     */
+    private static final class Branch {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Branch(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Leaves whose keys have the same hash.
+     */
+    private static final class Collision {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        private Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    /**
+     * Walks the trie depth-first, keeping the path from the root in a small stack.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        // Deep enough for a 32-bit hash split into 5-bit fragments, plus a collision node.
+        private final Object[][] stack = new Object[9][];
+        private final int[] positions = new int[9];
+        private int depth;
+        @Nullable
+        private Leaf next;
+
+        private EntryIterator(Branch root) {
+            stack[0] = root.slots;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] slots = stack[depth];
+                if (positions[depth] == slots.length) {
+                    depth--;
+                    continue;
+                }
+
+                Object node = slots[positions[depth]++];
+                if (node instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                depth++;
+                stack[depth] = (node instanceof Branch branch) ? branch.slots : ((Collision) node).leaves;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Entry<K, V> entry = (Entry<K, V>) (Entry<?, ?>) next;
+            advance();
+            return entry;
+        }
+    }
+}
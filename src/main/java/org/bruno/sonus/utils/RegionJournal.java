@@ -0,0 +1,332 @@
+package org.bruno.sonus.utils;
+
+import org.bruno.sonus.data.SoundRegion;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of region mutations.
+ * <p>
+ * Every define, delete and sound assignment is appended as one small record, so a change costs
+ * a short sequential write instead of rewriting a whole YAML file. Records are framed as
+ * {@code [length][crc32][payload]}; a record torn by a crash fails its checksum and is dropped,
+ * along with anything after it, when the journal is replayed.
+ * <p>
+ * Appends are handed to a background thread, which writes everything queued within a short
+ * window and then syncs the file once (group commit). Once the journal grows past a threshold
+ * it is compacted: the owner writes the full current state to its snapshot files, after which
+ * the journal is truncated. Every record carries the full state of the entity it touches, so
+ * replaying records that are already in the snapshot is harmless.
+ */
+public final class RegionJournal {
+    private static final byte DEFINE = 1;
+    private static final byte DELETE = 2;
+    private static final byte SET_SOUND = 3;
+
+    // Appends made within this window are written and synced together.
+    private static final long GROUP_COMMIT_MILLIS = 20;
+    // Journal size after which the state is compacted into the snapshot files.
+    private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+    // Upper bound for a single record, used to reject garbage lengths when replaying.
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final Logger logger;
+    private final ScheduledExecutorService executor;
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+
+    private FileChannel channel;
+    private Runnable compactor;
+
+    /**
+     * A single mutation stored in the journal.
+     */
+    public sealed interface Entry permits Define, Delete, SetSound {}
+
+    /** A region was defined. */
+    public record Define(SoundRegion region) implements Entry {}
+
+    /** A region was deleted. */
+    public record Delete(String regionName) implements Entry {}
+
+    /** A sound profile was assigned to a region. */
+    public record SetSound(String regionName, String profileName) implements Entry {}
+
+    /**
+     * @param path   The journal file. It is created when the journal is opened.
+     * @param logger The logger used to report I/O failures.
+     */
+    public RegionJournal(Path path, Logger logger) {
+        this.path = path;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sonus Journal Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads every intact record in the journal, in the order they were written.
+     * A torn or corrupt record ends the replay and is cut off the file.
+     * Must be called before {@link #open(Runnable)}.
+     *
+     * @param consumer Receives each replayed entry.
+     * @return The number of entries replayed.
+     * @throws IOException If the journal exists but cannot be read.
+     */
+    public int replay(Consumer<Entry> consumer) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        int count = 0;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            long position = 0;
+            long size = file.size();
+
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                file.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) break;
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                file.read(payload, position + HEADER_BYTES);
+                if (checksum(payload.array()) != checksum) break;
+
+                Entry entry;
+                try {
+                    entry = decode(payload.array());
+                } catch (IOException e) {
+                    break; // Intact but unreadable, so treat it like any other corrupt record
+                }
+                consumer.accept(entry);
+                position += HEADER_BYTES + length;
+                count++;
+            }
+
+            if (position < size) {
+                logger.warning("Discarded " + (size - position) + " bytes of incomplete or corrupt data at the end of " + path.getFileName() + ".");
+                file.truncate(position);
+                file.force(true);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Opens the journal for appending.
+     * @param compactor Writes the full current state to the snapshot files. Runs on the journal
+     *                  thread, and the journal is truncated once it returns.
+     * @throws IOException If the journal file cannot be opened.
+     */
+    public void open(Runnable compactor) throws IOException {
+        this.compactor = compactor;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends a mutation. The entry is encoded right away and written by the journal thread
+     * together with any other entries appended within the group commit window.
+     * Safe to call from any thread.
+     * @param entry The mutation to record.
+     */
+    public void append(Entry entry) {
+        pending.add(encode(entry));
+        if (commitScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::commit, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the full state to the snapshot files and empties the journal, in the background.
+     */
+    public void compact() {
+        executor.execute(this::compactNow);
+    }
+
+    /**
+     * Writes the full state to the snapshot files and empties the journal, waiting until it is done.
+     * @return true if the snapshot files now hold every change, false if compaction failed.
+     */
+    public boolean checkpoint() {
+        try {
+            return executor.submit(this::compactNow).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Failed to compact the region journal.", e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * Commits every pending entry, compacts the journal and closes it. Called when the plugin is disabled.
+     */
+    public void close() {
+        try {
+            executor.submit(() -> {
+                compactNow();
+                closeChannel();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Failed to close the region journal.", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //<editor-fold desc="Journal thread">
+    private void commit() {
+        commitScheduled.set(false);
+        try {
+            if (writePending()) {
+                channel.force(false);
+            }
+            if (channel.size() >= COMPACT_THRESHOLD_BYTES) {
+                compactNow();
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not write to the region journal!", e);
+        }
+    }
+
+    private boolean compactNow() {
+        if (channel == null) return false;
+        try {
+            // Everything appended so far is already applied in memory, so the snapshot includes it.
+            if (writePending()) {
+                channel.force(false);
+            }
+            if (channel.size() == 0) {
+                return true; // Nothing changed since the snapshot files were last written
+            }
+            compactor.run();
+            channel.truncate(0);
+            channel.force(true);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // The journal is left untouched, so nothing is lost; compaction is retried later.
+            logger.log(Level.SEVERE, "Could not compact the region journal!", e);
+            return false;
+        }
+    }
+
+    private boolean writePending() throws IOException {
+        boolean wrote = false;
+        byte[] record;
+        while ((record = pending.poll()) != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close the region journal.", e);
+        }
+        channel = null;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Encoding">
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            // Room for the header, filled in below once the payload length is known
+            out.writeLong(0);
+
+            if (entry instanceof Define define) {
+                SoundRegion region = define.region();
+                out.writeByte(DEFINE);
+                out.writeUTF(region.name());
+                out.writeLong(region.worldId().getMostSignificantBits());
+                out.writeLong(region.worldId().getLeastSignificantBits());
+                out.writeUTF(region.worldName());
+                out.writeDouble(region.minX());
+                out.writeDouble(region.minY());
+                out.writeDouble(region.minZ());
+                out.writeDouble(region.maxX());
+                out.writeDouble(region.maxY());
+                out.writeDouble(region.maxZ());
+            } else if (entry instanceof Delete delete) {
+                out.writeByte(DELETE);
+                out.writeUTF(delete.regionName());
+            } else if (entry instanceof SetSound setSound) {
+                out.writeByte(SET_SOUND);
+                out.writeUTF(setSound.regionName());
+                out.writeUTF(setSound.profileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory cannot fail
+        }
+
+        byte[] record = bytes.toByteArray();
+        int length = record.length - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, length);
+        ByteBuffer.wrap(record).putInt(length).putInt((int) crc.getValue());
+        return record;
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        return switch (type) {
+            case DEFINE -> {
+                String name = in.readUTF();
+                UUID worldId = new UUID(in.readLong(), in.readLong());
+                String worldName = in.readUTF();
+                yield new Define(new SoundRegion(name, worldId, worldName,
+                        in.readDouble(), in.readDouble(), in.readDouble(),
+                        in.readDouble(), in.readDouble(), in.readDouble()));
+            }
+            case DELETE -> new Delete(in.readUTF());
+            case SET_SOUND -> new SetSound(in.readUTF(), in.readUTF());
+            default -> throw new IOException("Unknown journal record type " + type);
+        };
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,11 @@
+package org.bruno.sonus.utils;
+
+/**
+ * Controls how the plugin detects players entering and leaving regions.
+ */
+public enum RegionTrackingMode {
+    /** Every online player is checked on a fixed interval. */
+    POLLING,
+    /** Players are checked when they move to another block, teleport, respawn or join, plus a slow safety sweep. */
+    EVENTS
+}
@@ -0,0 +1,446 @@
+package org.bruno.sonus.utils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads and writes regions, one per line, for bulk import and export.
+ * <p>
+ * Two formats are supported, chosen by file extension. Both use the same fields:
+ * {@code name, world, min_x, min_y, min_z, max_x, max_y, max_z} and an optional {@code profile}.
+ * <pre>
+ * NDJSON (.ndjson, .jsonl)  one flat JSON object per line
+ * CSV (.csv)                a header line naming the columns, then one region per line
+ * </pre>
+ * Files are read and written a line at a time, so memory use does not grow with the file size.
+ */
+public final class RegionTransferFile {
+    public static final String NAME = "name";
+    public static final String WORLD = "world";
+    public static final String PROFILE = "profile";
+    private static final List<String> COORDINATES = List.of("min_x", "min_y", "min_z", "max_x", "max_y", "max_z");
+    private static final List<String> COLUMNS = List.of(NAME, WORLD, "min_x", "min_y", "min_z", "max_x", "max_y", "max_z", PROFILE);
+
+    private RegionTransferFile() {}
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * @return The format matching the extension of a file name, or null if it has none of the known extensions.
+         */
+        @Nullable
+        public static Format forFile(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) return NDJSON;
+            if (lower.endsWith(".csv")) return CSV;
+            return null;
+        }
+    }
+
+    /**
+     * One region as stored in a transfer file. The corners are not normalized.
+     * @param profile The sound profile bound to the region, or null if it has none.
+     */
+    public record Row(String name, String worldName,
+                      double minX, double minY, double minZ,
+                      double maxX, double maxY, double maxZ,
+                      @Nullable String profile) {}
+
+    /**
+     * Opens a transfer file for reading.
+     * @throws IOException If the file cannot be opened, or a CSV file has no valid header.
+     */
+    public static Reader open(Path path, Format format) throws IOException {
+        BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        try {
+            return new Reader(in, format);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates or replaces a transfer file for writing.
+     * @throws IOException If the file cannot be created.
+     */
+    public static Writer create(Path path, Format format) throws IOException {
+        return new Writer(Files.newBufferedWriter(path, StandardCharsets.UTF_8), format);
+    }
+
+    /**
+     * Reads rows one line at a time. A line that is not a valid region is reported with
+     * an {@link IllegalArgumentException}; reading can go on with the next line.
+     */
+    public static final class Reader implements Closeable {
+        private final BufferedReader in;
+        private final Format format;
+        @Nullable
+        private final String[] header;
+        private int lineNumber;
+
+        private Reader(BufferedReader in, Format format) throws IOException {
+            this.in = in;
+            this.format = format;
+            this.header = (format == Format.CSV) ? readHeader() : null;
+        }
+
+        private String[] readHeader() throws IOException {
+            String line = nextLine();
+            if (line == null) {
+                throw new IOException("The file is empty.");
+            }
+            // Spreadsheet programs often start the file with a byte order mark
+            if (line.startsWith("\uFEFF")) line = line.substring(1);
+            String[] columns = splitCsv(line).toArray(String[]::new);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].trim().toLowerCase(Locale.ROOT);
+            }
+            for (String column : COLUMNS) {
+                if (!column.equals(PROFILE) && !List.of(columns).contains(column)) {
+                    throw new IOException("The CSV header is missing the '" + column + "' column.");
+                }
+            }
+            return columns;
+        }
+
+        /**
+         * Reads the next region.
+         * @return The region, or null at the end of the file.
+         * @throws IOException              If the file cannot be read.
+         * @throws IllegalArgumentException If the line is not a valid region. The line is skipped.
+         */
+        @Nullable
+        public Row next() throws IOException {
+            String line = nextLine();
+            if (line == null) return null;
+
+            Map<String, String> fields = (format == Format.CSV) ? parseCsv(line) : parseJson(line);
+            return toRow(fields);
+        }
+
+        /**
+         * @return The line number of the last line read, starting at 1.
+         */
+        public int lineNumber() {
+            return lineNumber;
+        }
+
+        @Nullable
+        private String nextLine() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) return null;
+                lineNumber++;
+            } while (line.isBlank());
+            return line;
+        }
+
+        private Map<String, String> parseCsv(String line) {
+            List<String> values = splitCsv(line);
+            if (values.size() > header.length) {
+                throw new IllegalArgumentException("expected " + header.length + " columns, found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header[i], values.get(i));
+            }
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes rows one line at a time.
+     */
+    public static final class Writer implements Closeable {
+        private final BufferedWriter out;
+        private final Format format;
+
+        private Writer(BufferedWriter out, Format format) throws IOException {
+            this.out = out;
+            this.format = format;
+            if (format == Format.CSV) {
+                out.write(String.join(",", COLUMNS));
+                out.newLine();
+            }
+        }
+
+        public void write(Row row) throws IOException {
+            String[] values = {
+                    row.name(), row.worldName(),
+                    number(row.minX()), number(row.minY()), number(row.minZ()),
+                    number(row.maxX()), number(row.maxY()), number(row.maxZ()),
+                    row.profile()
+            };
+            out.write(format == Format.CSV ? toCsv(values) : toJson(values));
+            out.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private static String number(double value) {
+            // Block coordinates are whole numbers; keep them free of a trailing ".0"
+            return (value == Math.rint(value) && Math.abs(value) < 1e15) ? Long.toString((long) value) : Double.toString(value);
+        }
+
+        private static String toCsv(String[] values) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) line.append(',');
+                String value = values[i];
+                if (value == null) continue;
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                    line.append('"').append(value.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(value);
+                }
+            }
+            return line.toString();
+        }
+
+        private static String toJson(String[] values) {
+            StringBuilder line = new StringBuilder("{");
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i];
+                if (value == null) continue;
+                if (i > 0) line.append(',');
+                line.append('"').append(COLUMNS.get(i)).append("\":");
+                boolean isNumber = i >= 2 && i < 2 + COORDINATES.size();
+                if (isNumber) {
+                    line.append(value);
+                } else {
+                    appendJsonString(line, value);
+                }
+            }
+            return line.append('}').toString();
+        }
+    }
+
+    private static Row toRow(Map<String, String> fields) {
+        String name = fields.get(NAME);
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("missing region name");
+        }
+        // Names are used as command arguments and as YAML keys
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c) || c == '.') {
+                throw new IllegalArgumentException("region name '" + name + "' must not contain spaces or dots");
+            }
+        }
+
+        String worldName = fields.get(WORLD);
+        if (worldName == null || worldName.isBlank()) {
+            throw new IllegalArgumentException("missing world of region '" + name + "'");
+        }
+
+        double[] coordinates = new double[COORDINATES.size()];
+        for (int i = 0; i < coordinates.length; i++) {
+            String key = COORDINATES.get(i);
+            String value = fields.get(key);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("missing " + key + " of region '" + name + "'");
+            }
+            try {
+                coordinates[i] = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid " + key + " '" + value + "' of region '" + name + "'");
+            }
+            if (!Double.isFinite(coordinates[i])) {
+                throw new IllegalArgumentException("invalid " + key + " '" + value + "' of region '" + name + "'");
+            }
+        }
+
+        String profile = fields.get(PROFILE);
+        return new Row(name, worldName,
+                coordinates[0], coordinates[1], coordinates[2],
+                coordinates[3], coordinates[4], coordinates[5],
+                (profile == null || profile.isBlank()) ? null : profile.trim());
+    }
+
+    //<editor-fold desc="CSV and JSON syntax">
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings, numbers, booleans or null.
+     */
+    private static Map<String, String> parseJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        Map<String, String> fields = new HashMap<>();
+        cursor.expect('{');
+        if (!cursor.consume('}')) {
+            do {
+                String key = cursor.string();
+                cursor.expect(':');
+                String value = cursor.value();
+                if (value != null) fields.put(key.toLowerCase(Locale.ROOT), value);
+            } while (cursor.consume(','));
+            cursor.expect('}');
+        }
+        cursor.end();
+        return fields;
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int position;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) throw error("expected '" + c + "'");
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipWhitespace();
+            if (position != text.length()) throw error("unexpected text after the object");
+        }
+
+        @Nullable
+        String value() {
+            skipWhitespace();
+            if (position >= text.length()) throw error("missing value");
+            char c = text.charAt(position);
+            if (c == '"') return string();
+            if (c == '{' || c == '[') throw error("nested values are not supported");
+
+            int start = position;
+            while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) throw error("missing value");
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != '"') throw error("expected a string");
+            position++;
+
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) break;
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) throw error("invalid escape");
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("invalid escape");
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("invalid JSON at column " + (position + 1) + ": " + message);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,522 @@
+package org.bruno.sonus.utils;
+
+import org.bruno.sonus.data.SoundRegion;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable R-tree over the bounding boxes of the regions of a single world.
+ * <p>
+ * Unlike a uniform grid, every region is stored exactly once regardless of its size, so a
+ * world-wide ambience region and thousands of small shop regions can share the same index.
+ * The tree is persistent: {@link #insert(SoundRegion)} and {@link #remove(SoundRegion)} copy only
+ * the path from the root to the touched leaf and return a new tree, which makes it safe to read
+ * from any thread while another one publishes an updated version.
+ */
+public final class RegionTree {
+    private static final int MAX_ENTRIES = 16;
+    // Number of regions from which building an index is split across the fork-join pool.
+    public static final int PARALLEL_THRESHOLD = 10_000;
+    private static final int MIN_ENTRIES = MAX_ENTRIES / 4;
+
+    public static final RegionTree EMPTY = new RegionTree(null, 0);
+
+    /**
+     * Orders regions from the most specific (smallest volume) to the least specific, falling
+     * back to the name so overlapping regions always resolve the same way.
+     */
+    public static final Comparator<SoundRegion> MOST_SPECIFIC_FIRST =
+            Comparator.comparingDouble(SoundRegion::volume).thenComparing(SoundRegion::name);
+
+    @Nullable
+    private final Node root;
+    private final int size;
+
+    private RegionTree(@Nullable Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds a packed tree from a batch of regions using Sort-Tile-Recursive loading.
+     * This produces far better node layouts than inserting the regions one by one.
+     *
+     * @param regions The regions to index.
+     * @return A new tree containing all the given regions.
+     */
+    public static RegionTree bulkLoad(Collection<SoundRegion> regions) {
+        if (regions.isEmpty()) return EMPTY;
+
+        List<Node> level = new ArrayList<>();
+        for (List<SoundRegion> tile : tile(new ArrayList<>(regions), r -> centerX(r), r -> centerZ(r))) {
+            level.add(Node.leaf(tile.toArray(new SoundRegion[0])));
+        }
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            for (List<Node> tile : tile(level, n -> (n.minX + n.maxX) / 2, n -> (n.minZ + n.maxZ) / 2)) {
+                parents.add(Node.branch(tile.toArray(new Node[0])));
+            }
+            level = parents;
+        }
+        return new RegionTree(level.get(0), regions.size());
+    }
+
+    /**
+     * Returns a new tree that also contains the given region.
+     * @param region The region to add.
+     * @return The updated tree.
+     */
+    public RegionTree insert(SoundRegion region) {
+        if (root == null) {
+            return new RegionTree(Node.leaf(new SoundRegion[]{region}), 1);
+        }
+        Node[] result = insert(root, region);
+        Node newRoot = result.length == 1 ? result[0] : Node.branch(result);
+        return new RegionTree(newRoot, size + 1);
+    }
+
+    /**
+     * Returns a new tree without the given region.
+     * @param region The region to remove.
+     * @return The updated tree, or this tree if the region was not indexed.
+     */
+    public RegionTree remove(SoundRegion region) {
+        if (root == null) return this;
+
+        List<SoundRegion> orphans = new ArrayList<>();
+        Node newRoot = remove(root, region, orphans);
+        if (newRoot == root) return this;
+
+        // Collapse roots that are left with a single child
+        while (newRoot != null && !newRoot.isLeaf() && newRoot.children.length == 1) {
+            newRoot = newRoot.children[0];
+        }
+
+        RegionTree tree = new RegionTree(newRoot, size - 1 - orphans.size());
+        for (SoundRegion orphan : orphans) {
+            tree = tree.insert(orphan);
+        }
+        return tree;
+    }
+
+    /**
+     * Finds the most specific region containing the given point, i.e. the smallest one.
+     * This does not allocate and is safe to call on hot paths.
+     *
+     * @return The most specific containing region, or null if the point is not in any region.
+     */
+    @Nullable
+    public SoundRegion findMostSpecific(double x, double y, double z) {
+        return root == null ? null : findMostSpecific(root, x, y, z, null);
+    }
+
+    /**
+     * Finds the most specific region containing the given point, like {@link #findMostSpecific(double, double, double)},
+     * along with the distance from the point to the nearest region boundary. As long as the point moves
+     * less than that distance, it cannot enter or leave any region, so the result cannot change.
+     * This does not allocate and is safe to call on hot paths.
+     *
+     * @param maxDistance The furthest distance searched for a boundary. Boundaries further away are not looked for.
+     * @param out         Receives the region and the distance, which is at most {@code maxDistance}.
+     */
+    public void lookup(double x, double y, double z, double maxDistance, Lookup out) {
+        out.region = null;
+        out.boundaryDistance = maxDistance;
+        if (root != null) lookup(root, x, y, z, out);
+    }
+
+    /**
+     * Collects every region containing the given point.
+     * @param out The list the matching regions are added to, in no particular order.
+     */
+    public void findAll(double x, double y, double z, List<SoundRegion> out) {
+        if (root != null) findAll(root, x, y, z, out);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The result of {@link #lookup(double, double, double, double, Lookup)}. Meant to be reused
+     * by one caller for every lookup, so lookups on hot paths do not allocate.
+     */
+    public static final class Lookup {
+        @Nullable
+        private SoundRegion region;
+        private double boundaryDistance;
+
+        /**
+         * @return The most specific region containing the point, or null if none does.
+         */
+        @Nullable
+        public SoundRegion region() {
+            return region;
+        }
+
+        /**
+         * @return How far the point can move in any direction without entering or leaving a region.
+         */
+        public double boundaryDistance() {
+            return boundaryDistance;
+        }
+    }
+
+    //<editor-fold desc="Queries">
+
+    @Nullable
+    private static SoundRegion findMostSpecific(Node node, double x, double y, double z, @Nullable SoundRegion best) {
+        if (!node.contains(x, y, z)) return best;
+
+        if (node.isLeaf()) {
+            for (SoundRegion region : node.entries) {
+                if (region.contains(x, y, z) && (best == null || MOST_SPECIFIC_FIRST.compare(region, best) < 0)) {
+                    best = region;
+                }
+            }
+        } else {
+            for (Node child : node.children) {
+                best = findMostSpecific(child, x, y, z, best);
+            }
+        }
+        return best;
+    }
+
+    private static void lookup(Node node, double x, double y, double z, Lookup out) {
+        // Nodes containing the point are always visited for the region; others only if they may hold a closer boundary
+        if (!node.contains(x, y, z) && node.distanceTo(x, y, z) >= out.boundaryDistance) return;
+
+        if (node.isLeaf()) {
+            for (SoundRegion region : node.entries) {
+                if (region.contains(x, y, z) && (out.region == null || MOST_SPECIFIC_FIRST.compare(region, out.region) < 0)) {
+                    out.region = region;
+                }
+                out.boundaryDistance = Math.min(out.boundaryDistance, region.distanceToBoundary(x, y, z));
+            }
+        } else {
+            for (Node child : node.children) {
+                lookup(child, x, y, z, out);
+            }
+        }
+    }
+
+    private static void findAll(Node node, double x, double y, double z, List<SoundRegion> out) {
+        if (!node.contains(x, y, z)) return;
+
+        if (node.isLeaf()) {
+            for (SoundRegion region : node.entries) {
+                if (region.contains(x, y, z)) out.add(region);
+            }
+        } else {
+            for (Node child : node.children) {
+                findAll(child, x, y, z, out);
+            }
+        }
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="Updates">
+
+    /**
+     * Inserts into a subtree, returning either the replaced node or the two halves of a split.
+     */
+    private static Node[] insert(Node node, SoundRegion region) {
+        if (node.isLeaf()) {
+            SoundRegion[] entries = Arrays.copyOf(node.entries, node.entries.length + 1);
+            entries[entries.length - 1] = region;
+            return entries.length > MAX_ENTRIES ? splitLeaf(entries) : new Node[]{Node.leaf(entries)};
+        }
+
+        int target = chooseSubtree(node, region);
+        Node[] result = insert(node.children[target], region);
+
+        Node[] children = Arrays.copyOf(node.children, node.children.length + result.length - 1);
+        children[target] = result[0];
+        if (result.length == 2) children[children.length - 1] = result[1];
+
+        return children.length > MAX_ENTRIES ? splitBranch(children) : new Node[]{Node.branch(children)};
+    }
+
+    private static int chooseSubtree(Node node, SoundRegion region) {
+        int best = 0;
+        double bestEnlargement = Double.MAX_VALUE;
+        double bestVolume = Double.MAX_VALUE;
+
+        for (int i = 0; i < node.children.length; i++) {
+            Node child = node.children[i];
+            double volume = child.volume();
+            double enlarged = (Math.max(child.maxX, maxX(region)) - Math.min(child.minX, minX(region)))
+                    * (Math.max(child.maxY, maxY(region)) - Math.min(child.minY, minY(region)))
+                    * (Math.max(child.maxZ, maxZ(region)) - Math.min(child.minZ, minZ(region)));
+            double enlargement = enlarged - volume;
+
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && volume < bestVolume)) {
+                best = i;
+                bestEnlargement = enlargement;
+                bestVolume = volume;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Removes a region from a subtree. Returns the same node if the region was not found below it,
+     * or null if the node became empty. Entries of nodes that fall below the minimum fill are
+     * moved to {@code orphans} so the caller can re-insert them.
+     */
+    @Nullable
+    private static Node remove(Node node, SoundRegion region, List<SoundRegion> orphans) {
+        if (node.isLeaf()) {
+            int index = indexOf(node.entries, region);
+            if (index < 0) return node;
+            if (node.entries.length == 1) return null;
+
+            SoundRegion[] entries = new SoundRegion[node.entries.length - 1];
+            System.arraycopy(node.entries, 0, entries, 0, index);
+            System.arraycopy(node.entries, index + 1, entries, index, entries.length - index);
+            return Node.leaf(entries);
+        }
+
+        for (int i = 0; i < node.children.length; i++) {
+            Node child = node.children[i];
+            if (!child.covers(region)) continue;
+
+            Node updated = remove(child, region, orphans);
+            if (updated == child) continue;
+
+            List<Node> children = new ArrayList<>(Arrays.asList(node.children));
+            if (updated == null || updated.fill() < MIN_ENTRIES) {
+                children.remove(i);
+                if (updated != null) collectEntries(updated, orphans);
+            } else {
+                children.set(i, updated);
+            }
+            return children.isEmpty() ? null : Node.branch(children.toArray(new Node[0]));
+        }
+        return node;
+    }
+
+    private static Node[] splitLeaf(SoundRegion[] entries) {
+        SoundRegion[] sorted = entries.clone();
+        Arrays.sort(sorted, splitOrder(sorted));
+        int half = sorted.length / 2;
+        return new Node[]{
+                Node.leaf(Arrays.copyOfRange(sorted, 0, half)),
+                Node.leaf(Arrays.copyOfRange(sorted, half, sorted.length))
+        };
+    }
+
+    private static Node[] splitBranch(Node[] children) {
+        Node[] sorted = children.clone();
+        Node bounds = Node.branch(children);
+        double spreadX = bounds.maxX - bounds.minX;
+        double spreadY = bounds.maxY - bounds.minY;
+        double spreadZ = bounds.maxZ - bounds.minZ;
+
+        Comparator<Node> order;
+        if (spreadX >= spreadY && spreadX >= spreadZ) {
+            order = Comparator.comparingDouble(n -> n.minX + n.maxX);
+        } else if (spreadZ >= spreadY) {
+            order = Comparator.comparingDouble(n -> n.minZ + n.maxZ);
+        } else {
+            order = Comparator.comparingDouble(n -> n.minY + n.maxY);
+        }
+        Arrays.sort(sorted, order);
+
+        int half = sorted.length / 2;
+        return new Node[]{
+                Node.branch(Arrays.copyOfRange(sorted, 0, half)),
+                Node.branch(Arrays.copyOfRange(sorted, half, sorted.length))
+        };
+    }
+
+    /**
+     * Picks the axis along which the entries are spread the most, so a split produces two
+     * halves that overlap as little as possible.
+     */
+    private static Comparator<SoundRegion> splitOrder(SoundRegion[] entries) {
+        Node bounds = Node.leaf(entries);
+        double spreadX = bounds.maxX - bounds.minX;
+        double spreadY = bounds.maxY - bounds.minY;
+        double spreadZ = bounds.maxZ - bounds.minZ;
+
+        if (spreadX >= spreadY && spreadX >= spreadZ) return Comparator.comparingDouble(RegionTree::centerX);
+        if (spreadZ >= spreadY) return Comparator.comparingDouble(RegionTree::centerZ);
+        return Comparator.comparingDouble(r -> (minY(r) + maxY(r)) / 2);
+    }
+
+    private static void collectEntries(Node node, List<SoundRegion> out) {
+        if (node.isLeaf()) {
+            out.addAll(Arrays.asList(node.entries));
+        } else {
+            for (Node child : node.children) {
+                collectEntries(child, out);
+            }
+        }
+    }
+
+    private static int indexOf(SoundRegion[] entries, SoundRegion region) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == region || entries[i].equals(region)) return i;
+        }
+        return -1;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="Bulk loading">
+
+    /**
+     * Sort-Tile-Recursive partitioning: sorts the items into vertical slices along X, then
+     * cuts every slice along Z into runs of at most {@link #MAX_ENTRIES} items.
+     */
+    private static <T> List<List<T>> tile(List<T> items, KeyFunction<T> xKey, KeyFunction<T> zKey) {
+        int nodeCount = (int) Math.ceil(items.size() / (double) MAX_ENTRIES);
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * MAX_ENTRIES;
+
+        Comparator<T> byX = Comparator.comparingDouble(xKey::apply);
+        Comparator<T> byZ = Comparator.comparingDouble(zKey::apply);
+
+        if (items.size() < PARALLEL_THRESHOLD) {
+            items.sort(byX);
+            List<List<T>> tiles = new ArrayList<>(nodeCount);
+            for (int sliceStart = 0; sliceStart < items.size(); sliceStart += sliceSize) {
+                tiles.addAll(tileSlice(items, sliceStart, sliceSize, byZ));
+            }
+            return tiles;
+        }
+
+        // Sorting dominates building a large index, so the sort and the slices run in parallel.
+        List<T> sorted = items.parallelStream().sorted(byX).toList();
+        int slices = (int) Math.ceil(sorted.size() / (double) sliceSize);
+        return IntStream.range(0, slices).parallel()
+                .mapToObj(slice -> tileSlice(sorted, slice * sliceSize, sliceSize, byZ))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private static <T> List<List<T>> tileSlice(List<T> items, int sliceStart, int sliceSize, Comparator<T> byZ) {
+        List<T> slice = new ArrayList<>(items.subList(sliceStart, Math.min(sliceStart + sliceSize, items.size())));
+        slice.sort(byZ);
+
+        List<List<T>> tiles = new ArrayList<>();
+        for (int tileStart = 0; tileStart < slice.size(); tileStart += MAX_ENTRIES) {
+            tiles.add(slice.subList(tileStart, Math.min(tileStart + MAX_ENTRIES, slice.size())));
+        }
+        return tiles;
+    }
+
+    @FunctionalInterface
+    private interface KeyFunction<T> {
+        double apply(T item);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="Region bounds">
+
+    private static double centerX(SoundRegion region) { return (region.minX() + region.maxX()) / 2; }
+    private static double centerZ(SoundRegion region) { return (region.minZ() + region.maxZ()) / 2; }
+
+    private static double minX(SoundRegion region) { return region.minX(); }
+    private static double minY(SoundRegion region) { return region.minY(); }
+    private static double minZ(SoundRegion region) { return region.minZ(); }
+    private static double maxX(SoundRegion region) { return region.maxX(); }
+    private static double maxY(SoundRegion region) { return region.maxY(); }
+    private static double maxZ(SoundRegion region) { return region.maxZ(); }
+
+    //</editor-fold>
+
+    /**
+     * A tree node. Leaves hold regions, branches hold child nodes; both cache their bounding box.
+     */
+    private static final class Node {
+        private final double minX, minY, minZ, maxX, maxY, maxZ;
+        private final SoundRegion[] entries;
+        private final Node[] children;
+
+        private Node(SoundRegion[] entries, Node[] children,
+                     double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            this.entries = entries;
+            this.children = children;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        static Node leaf(SoundRegion[] entries) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+            for (SoundRegion region : entries) {
+                minX = Math.min(minX, RegionTree.minX(region));
+                minY = Math.min(minY, RegionTree.minY(region));
+                minZ = Math.min(minZ, RegionTree.minZ(region));
+                maxX = Math.max(maxX, RegionTree.maxX(region));
+                maxY = Math.max(maxY, RegionTree.maxY(region));
+                maxZ = Math.max(maxZ, RegionTree.maxZ(region));
+            }
+            return new Node(entries, null, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        static Node branch(Node[] children) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+            for (Node child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                minZ = Math.min(minZ, child.minZ);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+                maxZ = Math.max(maxZ, child.maxZ);
+            }
+            return new Node(null, children, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        boolean isLeaf() {
+            return entries != null;
+        }
+
+        int fill() {
+            return isLeaf() ? entries.length : children.length;
+        }
+
+        double volume() {
+            return (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+        }
+
+        boolean contains(double x, double y, double z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        /**
+         * @return The distance from a point outside this node to its bounding box, or 0 if the point is inside.
+         */
+        double distanceTo(double x, double y, double z) {
+            double dx = Math.max(0, Math.max(minX - x, x - maxX));
+            double dy = Math.max(0, Math.max(minY - y, y - maxY));
+            double dz = Math.max(0, Math.max(minZ - z, z - maxZ));
+            return Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        boolean covers(SoundRegion region) {
+            return RegionTree.minX(region) >= minX && RegionTree.maxX(region) <= maxX
+                    && RegionTree.minY(region) >= minY && RegionTree.maxY(region) <= maxY
+                    && RegionTree.minZ(region) >= minZ && RegionTree.maxZ(region) <= maxZ;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.bruno.sonus.utils;
+
+/**
+ * Controls how region and sound assignment changes are persisted.
+ */
+public enum StorageMode {
+    /** Every change rewrites regions.yml or sounds.yml (in the background, coalescing bursts of changes). */
+    YAML,
+    /** Every change is appended to a journal, which is periodically compacted into regions.yml and sounds.yml. */
+    JOURNAL,
+    /** Regions are kept in the compact regions.bin file. Sound assignments stay in sounds.yml. */
+    BINARY,
+    /** Regions and sound assignments are kept in indexed tables of the embedded sonus.db SQLite database. */
+    SQLITE
+}
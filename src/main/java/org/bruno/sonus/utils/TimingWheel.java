@@ -0,0 +1,152 @@
+package org.bruno.sonus.utils;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel measured in server ticks.
+ * <p>
+ * Timeouts are stored in an array of slots indexed by their deadline, so scheduling,
+ * cancelling and firing are all O(1) and thousands of repeating timeouts cost a single
+ * scheduler task that calls {@link #tick()} once per server tick.
+ * <p>
+ * {@link #schedule(Task, long)} and {@link Timeout#cancel()} may be called from any thread.
+ * {@link #tick()} must always be called from the same thread, which is also the thread that
+ * runs every {@link Task}.
+ */
+public final class TimingWheel {
+    private final Logger logger;
+    private final Timeout[] slots;
+    private final int mask;
+
+    // Timeouts scheduled from any thread, moved into the slots by the ticking thread.
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    /**
+     * A unit of work run by the wheel.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Runs the task.
+         * @return The number of ticks until the task should run again, or 0 or less to stop repeating.
+         */
+        long run();
+    }
+
+    /**
+     * A handle to a scheduled task. A repeating task keeps the same handle for all its runs.
+     */
+    public static final class Timeout {
+        private final Task task;
+        private final long initialDelay;
+        private volatile boolean cancelled;
+        private long deadline;
+        private Timeout next;
+
+        private Timeout(Task task, long initialDelay) {
+            this.task = task;
+            this.initialDelay = initialDelay;
+        }
+
+        /**
+         * Cancels the task. It is dropped from its slot the next time the wheel reaches it.
+         */
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * @param slotCount The number of slots, rounded up to a power of two. Timeouts further away
+     *                  than this many ticks simply wait for the wheel to come around again.
+     * @param logger    The logger used to report tasks that throw.
+     */
+    public TimingWheel(int slotCount, Logger logger) {
+        int size = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = new Timeout[size];
+        this.mask = size - 1;
+        this.logger = logger;
+    }
+
+    /**
+     * Schedules a task to run after the given number of ticks.
+     * @param task       The task to run.
+     * @param delayTicks The delay in ticks, at least 1.
+     * @return A handle that can be used to cancel the task.
+     */
+    public Timeout schedule(Task task, long delayTicks) {
+        Timeout timeout = new Timeout(task, Math.max(1, delayTicks));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every task whose deadline has been reached.
+     */
+    public void tick() {
+        currentTick++;
+
+        Timeout added;
+        while ((added = pending.poll()) != null) {
+            if (!added.cancelled) {
+                added.deadline = currentTick + added.initialDelay - 1;
+                insert(added);
+            }
+        }
+
+        // Detach the slot first, so timeouts rescheduled into it are not run twice in one tick.
+        int index = (int) (currentTick & mask);
+        Timeout timeout = slots[index];
+        slots[index] = null;
+
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+
+            if (!timeout.cancelled) {
+                if (timeout.deadline > currentTick) {
+                    insert(timeout); // Due in a later turn of the wheel
+                } else {
+                    long again = run(timeout);
+                    if (again > 0 && !timeout.cancelled) {
+                        timeout.deadline = currentTick + again;
+                        insert(timeout);
+                    }
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Drops every scheduled task.
+     */
+    public void clear() {
+        pending.clear();
+        Arrays.fill(slots, null);
+    }
+
+    private long run(Timeout timeout) {
+        try {
+            return timeout.task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "A scheduled sound task failed and was stopped.", e);
+            return 0;
+        }
+    }
+
+    private void insert(Timeout timeout) {
+        int index = (int) (timeout.deadline & mask);
+        timeout.next = slots[index];
+        slots[index] = timeout;
+    }
+}
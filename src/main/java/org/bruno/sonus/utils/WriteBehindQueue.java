@@ -0,0 +1,107 @@
+package org.bruno.sonus.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs writes on a single background thread, coalescing repeated writes of the same target.
+ * <p>
+ * The first write submitted for a target is delayed by a short window. Writes submitted for
+ * the same target during that window replace it, so a burst of changes results in a single
+ * write. Because every write runs on the same thread, two writes never overlap.
+ */
+public final class WriteBehindQueue {
+    private final Logger logger;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor;
+
+    // The latest write waiting for each target.
+    private final Map<String, Runnable> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param threadName  The name of the background thread.
+     * @param delayMillis How long a write waits for more changes to the same target before running.
+     * @param logger      The logger used to report writes that fail.
+     */
+    public WriteBehindQueue(String threadName, long delayMillis, Logger logger) {
+        this.logger = logger;
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a write for a target, replacing any write for it that has not run yet.
+     * Safe to call from any thread.
+     * @param target A key identifying what is written, such as a file name.
+     * @param write  The write to perform. It should read the latest state when it runs.
+     */
+    public void submit(String target, Runnable write) {
+        if (pending.put(target, write) != null) {
+            return; // Already scheduled, the newer write simply replaces the older one
+        }
+        try {
+            executor.schedule(() -> runPending(target), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The queue was shut down, so write right away rather than losing the change.
+            runPending(target);
+        }
+    }
+
+    /**
+     * Runs every pending write now and waits for them to finish.
+     */
+    public void flush() {
+        try {
+            executor.submit(this::runAllPending).get();
+        } catch (RejectedExecutionException e) {
+            runAllPending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Failed to flush pending writes.", e.getCause());
+        }
+    }
+
+    /**
+     * Flushes every pending write and stops the background thread.
+     */
+    public void shutdown() {
+        flush();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for pending writes to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runAllPending() {
+        for (String target : pending.keySet()) {
+            runPending(target);
+        }
+    }
+
+    private void runPending(String target) {
+        Runnable write = pending.remove(target);
+        if (write == null) return; // Already run by a flush
+
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to write " + target + ".", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.bruno.sonus.data;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionSnapshotTest {
+    private static final UUID WORLD_ID = new UUID(2, 2);
+
+    private static SoundRegion region(String name, double min, double max) {
+        return new SoundRegion(name, WORLD_ID, "world", min, min, min, max, max, max);
+    }
+
+    private static World world(String name, UUID id) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getUID" -> id;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "World " + name;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @Test
+    void ofKeepsTheLastRegionWithTheSameName() {
+        SoundRegion first = region("Cave", 0, 10);
+        SoundRegion second = region("cave", 20, 30);
+        RegionSnapshot snapshot = RegionSnapshot.of(3, List.of(first, second));
+
+        assertEquals(3, snapshot.epoch());
+        assertEquals(1, snapshot.size());
+        assertSame(second, snapshot.region("CAVE"));
+        assertNull(snapshot.regionAt(WORLD_ID, 5, 5, 5));
+        assertSame(second, snapshot.regionAt(WORLD_ID, 25, 25, 25));
+    }
+
+    @Test
+    void withAndWithoutBuildNewSnapshotsAndLeaveTheOldOnesUntouched() {
+        SoundRegion cave = region("cave", 0, 10);
+        SoundRegion lake = region("lake", 20, 30);
+        RegionSnapshot first = RegionSnapshot.of(0, List.of(cave));
+
+        RegionSnapshot second = first.with(lake);
+        assertEquals(1, second.epoch());
+        assertEquals(2, second.size());
+        assertSame(lake, second.regionAt(WORLD_ID, 25, 25, 25));
+        assertNull(first.region("lake"));
+        assertNull(first.regionAt(WORLD_ID, 25, 25, 25));
+
+        RegionSnapshot third = second.without(cave);
+        assertEquals(2, third.epoch());
+        assertFalse(third.contains("cave"));
+        assertNull(third.regionAt(WORLD_ID, 5, 5, 5));
+        assertSame(cave, second.regionAt(WORLD_ID, 5, 5, 5));
+
+        RegionSnapshot empty = third.without(lake);
+        assertEquals(0, empty.size());
+        assertNull(empty.index(WORLD_ID));
+    }
+
+    @Test
+    void withReplacesARegionWithTheSameName() {
+        SoundRegion before = region("cave", 0, 10);
+        SoundRegion after = region("CAVE", 50, 60);
+        RegionSnapshot snapshot = RegionSnapshot.of(0, List.of(before)).with(after);
+
+        assertEquals(1, snapshot.size());
+        assertSame(after, snapshot.region("cave"));
+        assertNull(snapshot.regionAt(WORLD_ID, 5, 5, 5));
+        assertSame(after, snapshot.regionAt(WORLD_ID, 55, 55, 55));
+        assertEquals(1, snapshot.index(WORLD_ID).size());
+    }
+
+    @Test
+    void dormantRegionsAreKeptApartUntilTheirWorldLoads() {
+        SoundRegion nether = new SoundRegion("Fortress", null, "world_nether", 0, 0, 0, 10, 10, 10);
+        RegionSnapshot snapshot = RegionSnapshot.EMPTY.withDormant(nether);
+
+        assertTrue(snapshot.contains("fortress"));
+        assertEquals("Fortress", snapshot.dormantRegionName("FORTRESS"));
+        assertNull(snapshot.region("fortress"));
+        assertEquals(1, snapshot.dormantSize());
+        assertEquals(1, snapshot.size());
+
+        UUID netherId = new UUID(3, 3);
+        RegionSnapshot active = snapshot.activate(world("world_nether", netherId));
+        assertEquals(0, active.dormantSize());
+        SoundRegion activated = active.region("fortress");
+        assertEquals(netherId, activated.worldId());
+        assertSame(activated, active.regionAt(netherId, 5, 5, 5));
+
+        RegionSnapshot dormantAgain = active.deactivate(world("world_nether", netherId));
+        assertNull(dormantAgain.region("fortress"));
+        assertNull(dormantAgain.index(netherId));
+        assertEquals("Fortress", dormantAgain.dormantRegionName("fortress"));
+
+        assertFalse(dormantAgain.withoutDormant("Fortress").contains("fortress"));
+    }
+
+    @Test
+    void activatingAWorldWithoutDormantRegionsChangesNothing() {
+        RegionSnapshot snapshot = RegionSnapshot.of(0, List.of(region("cave", 0, 10)));
+        assertSame(snapshot, snapshot.activate(world("world_the_end", new UUID(4, 4))));
+        assertSame(snapshot, snapshot.deactivate(world("world_the_end", new UUID(4, 4))));
+    }
+
+    @Test
+    void definingAnActiveRegionDropsADormantOneWithTheSameName() {
+        SoundRegion dormant = new SoundRegion("cave", null, "world_nether", 0, 0, 0, 10, 10, 10);
+        SoundRegion active = region("Cave", 0, 10);
+        RegionSnapshot snapshot = RegionSnapshot.EMPTY.withDormant(dormant).with(active);
+
+        assertEquals(0, snapshot.dormantSize());
+        assertSame(active, snapshot.region("cave"));
+        assertEquals(1, snapshot.size());
+    }
+}
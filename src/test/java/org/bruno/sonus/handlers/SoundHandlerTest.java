@@ -0,0 +1,247 @@
+package org.bruno.sonus.handlers;
+
+import org.bruno.sonus.data.RegionSnapshot;
+import org.bruno.sonus.data.SoundRegion;
+import org.bruno.sonus.helpers.FoliaHelper;
+import org.bruno.sonus.helpers.MessagesHelper;
+import org.bruno.sonus.storage.RegionStorage;
+import org.bruno.sonus.utils.ServerVersion;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the per-tick region check of a player who stays in the same region does not allocate,
+ * both from movement events and from the polling pass.
+ */
+class SoundHandlerTest {
+    private static final int WARMUP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 200_000;
+
+    private final Logger logger = Logger.getLogger(SoundHandlerTest.class.getName());
+    // Where the fake player is; read by the polling pass through Player#getLocation(Location).
+    private final Location position = new Location(null, 0, 0, 0);
+    private World world;
+    private Player player;
+    private RegionHandler regionHandler;
+    private SoundHandler soundHandler;
+
+    /**
+     * Regions are only kept in memory; nothing is read or written.
+     */
+    private static final class MemoryStorage implements RegionStorage {
+        @Override
+        public String name() {
+            return "memory";
+        }
+
+        @Override
+        public RegionSnapshot loadRegions() {
+            return RegionSnapshot.EMPTY;
+        }
+
+        @Override
+        public Map<String, String> loadBindings() {
+            return Map.of();
+        }
+
+        @Override
+        public void saveRegion(RegionSnapshot snapshot, SoundRegion region) {}
+
+        @Override
+        public void deleteRegion(RegionSnapshot snapshot, String name) {}
+
+        @Override
+        public void saveBinding(String regionName, String profileName) {}
+
+        @Override
+        public void saveAll(RegionSnapshot regions, Map<String, String> bindings) {}
+    }
+
+    /**
+     * An answer worked out from the arguments of each call.
+     */
+    private interface Answer {
+        Object answer(Object[] args);
+    }
+
+    /**
+     * Implements an interface with the given answers, so tests need no running server.
+     */
+    private static <T> T fake(Class<T> type, Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> type.getSimpleName();
+            default -> {
+                if (!answers.containsKey(method.getName())) throw new UnsupportedOperationException(method.getName());
+                Object answer = answers.get(method.getName());
+                yield (answer instanceof Answer computed) ? computed.answer(args) : answer;
+            }
+        }));
+    }
+
+    @BeforeEach
+    void setUp() {
+        world = fake(World.class, Map.of("getUID", new UUID(7, 7), "getName", "world"));
+        position.setWorld(world);
+        player = fake(Player.class, Map.of("getUniqueId", new UUID(8, 8), "getName", "Steve", "isOnline", true,
+                "getLocation", (Answer) this::locationOf));
+
+        MemoryStorage storage = new MemoryStorage();
+        regionHandler = new RegionHandler(storage, logger);
+        SoundProfileHandler soundProfileHandler = new SoundProfileHandler(null, storage, logger, regionHandler);
+        ConfigHandler configHandler = new ConfigHandler(new YamlConfiguration(), logger);
+        // Only the region check is exercised, which never schedules anything. Without Folia on the
+        // classpath the helper reports a plain server, so it never needs the plugin.
+        FoliaHelper foliaHelper = new FoliaHelper(null);
+        soundHandler = new SoundHandler(regionHandler, foliaHelper, soundProfileHandler, new MessagesHelper(ServerVersion.V_1_21), configHandler, logger);
+
+        regionHandler.defineRegion("alloc-outer", new Location(world, 0, 0, 0), new Location(world, 200, 200, 200));
+        regionHandler.defineRegion("alloc-inner", new Location(world, 40, 40, 40), new Location(world, 60, 60, 60));
+        for (int i = 0; i < 100; i++) {
+            // Unrelated regions nearby, so lookups have to walk a real tree
+            regionHandler.defineRegion("alloc-" + i, new Location(world, 300 + i * 10, 0, 0), new Location(world, 305 + i * 10, 10, 5));
+        }
+    }
+
+    private Location locationOf(Object[] args) {
+        if (args == null) return position.clone();
+
+        Location location = (Location) args[0];
+        location.setWorld(position.getWorld());
+        location.setX(position.getX());
+        location.setY(position.getY());
+        location.setZ(position.getZ());
+        return location;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Moves the player around inside the box from (x, y, z) to 10 blocks further on each axis, once per call.
+     */
+    private void moveAround(Location location, double x, double y, double z, int calls) {
+        for (int i = 0; i < calls; i++) {
+            location.setX(x + (i % 10));
+            location.setY(y + (i / 10 % 10));
+            location.setZ(z + (i / 100 % 10));
+            soundHandler.handlePlayerMove(player, location);
+        }
+    }
+
+    /**
+     * Moves the player like {@link #moveAround} does, but leaves it to the polling pass to notice.
+     */
+    private void pollAround(double x, double y, double z, int passes) {
+        for (int i = 0; i < passes; i++) {
+            position.setX(x + (i % 10));
+            position.setY(y + (i / 10 % 10));
+            position.setZ(z + (i / 100 % 10));
+            soundHandler.updateAllPlayerSounds();
+        }
+    }
+
+    /**
+     * Counts what the fake player itself allocates when asked for its location, as a proxy call
+     * with arguments always boxes them into a fresh array. That is not the plugin's doing.
+     */
+    private long fakeLocationOverhead(int calls) {
+        Location location = new Location(null, 0, 0, 0);
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            player.getLocation(location);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < calls; i++) {
+            player.getLocation(location);
+        }
+        return allocatedBytes() - before;
+    }
+
+    private static void assumeAllocationsCounted() {
+        assumeTrue(((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemorySupported(),
+                "Allocation counting is not supported by this JVM");
+    }
+
+    private void assertNoAllocations(double x, double y, double z) {
+        assumeAllocationsCounted();
+
+        Location location = new Location(world, x, y, z);
+        // The first check enters the region; the rest must only confirm the player is still there.
+        moveAround(location, x, y, z, WARMUP_CALLS);
+
+        long before = allocatedBytes();
+        moveAround(location, x, y, z, MEASURED_CALLS);
+        long allocated = allocatedBytes() - before;
+
+        // Any allocation on the checked path costs at least 16 bytes per call
+        assertTrue(allocated < MEASURED_CALLS, "Allocated " + allocated + " bytes over " + MEASURED_CALLS + " region checks");
+    }
+
+    private void assertNoAllocationsWhenPolled(double x, double y, double z) {
+        assumeAllocationsCounted();
+
+        soundHandler.handlePlayerJoin(player);
+        // The first pass enters the region; the rest must only confirm the player is still there.
+        pollAround(x, y, z, WARMUP_CALLS);
+
+        long before = allocatedBytes();
+        pollAround(x, y, z, MEASURED_CALLS);
+        long allocated = allocatedBytes() - before - fakeLocationOverhead(MEASURED_CALLS);
+
+        assertTrue(allocated < MEASURED_CALLS, "Allocated " + allocated + " bytes over " + MEASURED_CALLS + " polling passes");
+    }
+
+    @Test
+    void checkingAPlayerInsideARegionDoesNotAllocate() {
+        assertNoAllocations(5, 5, 5);
+        assertEquals(Set.of("alloc-outer"), soundHandler.getOccupiedRegions());
+        assertEquals(Set.of(player), soundHandler.getPlayersInRegion("alloc-outer"));
+    }
+
+    @Test
+    void checkingAPlayerInsideANestedRegionDoesNotAllocate() {
+        assertNoAllocations(45, 45, 45);
+        assertEquals(Set.of("alloc-inner"), soundHandler.getOccupiedRegions());
+    }
+
+    @Test
+    void checkingAPlayerOutsideEveryRegionDoesNotAllocate() {
+        assertNoAllocations(-500, 5, -500);
+        assertTrue(soundHandler.getOccupiedRegions().isEmpty());
+    }
+
+    @Test
+    void pollingAPlayerInsideARegionDoesNotAllocate() {
+        assertNoAllocationsWhenPolled(5, 5, 5);
+        assertEquals(Set.of("alloc-outer"), soundHandler.getOccupiedRegions());
+    }
+
+    @Test
+    void pollingAPlayerInsideANestedRegionDoesNotAllocate() {
+        assertNoAllocationsWhenPolled(45, 45, 45);
+        assertEquals(Set.of("alloc-inner"), soundHandler.getOccupiedRegions());
+    }
+
+    @Test
+    void pollingAPlayerOutsideEveryRegionDoesNotAllocate() {
+        assertNoAllocationsWhenPolled(-500, 5, -500);
+        assertTrue(soundHandler.getOccupiedRegions().isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package org.bruno.sonus.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistentMapTest {
+    /**
+     * A key with a chosen hash code, to force keys into the same trie slots and collision nodes.
+     */
+    private record Key(int hash, int id) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static void assertSameContents(Map<Key, Integer> expected, PersistentMap<Key, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        expected.forEach((key, value) -> assertEquals(value, actual.get(key)));
+
+        int iterated = 0;
+        for (Map.Entry<Key, Integer> entry : actual.entrySet()) {
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+            iterated++;
+        }
+        assertEquals(expected.size(), iterated);
+    }
+
+    @Test
+    void plusAndMinusReturnNewMapsAndLeaveTheOldOnesUntouched() {
+        PersistentMap<String, Integer> empty = PersistentMap.empty();
+        PersistentMap<String, Integer> one = empty.plus("a", 1);
+        PersistentMap<String, Integer> two = one.plus("b", 2);
+        PersistentMap<String, Integer> replaced = two.plus("a", 3);
+
+        assertEquals(Map.of(), empty);
+        assertEquals(Map.of("a", 1), one);
+        assertEquals(Map.of("a", 1, "b", 2), two);
+        assertEquals(Map.of("a", 3, "b", 2), replaced);
+        assertEquals(Map.of("b", 2), replaced.minus("a"));
+        assertEquals(Map.of("a", 3, "b", 2), replaced);
+    }
+
+    @Test
+    void unchangedMapsAreReturnedAsIs() {
+        Integer value = 1;
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("a", value);
+
+        assertSame(map, map.plus("a", value));
+        assertSame(map, map.minus("missing"));
+        assertSame(map, map.minus(null));
+        assertSame(map, PersistentMap.copyOf(map));
+        assertFalse(map.containsKey(null));
+        assertNull(map.get("missing"));
+    }
+
+    @Test
+    void mutatorsAndNullsAreRejected() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("a", 1);
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2));
+        assertThrows(NullPointerException.class, () -> map.plus(null, 1));
+        assertThrows(NullPointerException.class, () -> map.plus("b", null));
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomChanges() {
+        Random random = new Random(5);
+        // Few distinct hashes force collision nodes, many force deep tries, and spread hashes cover the rest.
+        int[] hashRanges = {4, 1000, Integer.MAX_VALUE};
+
+        for (int round = 0; round < 60; round++) {
+            int hashRange = hashRanges[round % hashRanges.length];
+            Map<Key, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 40; i++) {
+                expected.put(new Key(random.nextInt(hashRange) * 0x9E3779B1, random.nextInt(100)), i);
+            }
+            PersistentMap<Key, Integer> actual = PersistentMap.copyOf(expected);
+            assertSameContents(expected, actual);
+
+            List<Map<Key, Integer>> expectedVersions = new ArrayList<>();
+            List<PersistentMap<Key, Integer>> versions = new ArrayList<>();
+            for (int change = 0; change < 1000; change++) {
+                Key key = new Key(random.nextInt(hashRange) * 0x9E3779B1, random.nextInt(100));
+                if (random.nextBoolean()) {
+                    int value = random.nextInt(5);
+                    expected.put(key, value);
+                    actual = actual.plus(key, value);
+                } else {
+                    expected.remove(key);
+                    actual = actual.minus(key);
+                }
+                assertSameContents(expected, actual);
+
+                if (change % 100 == 0) {
+                    expectedVersions.add(new HashMap<>(expected));
+                    versions.add(actual);
+                }
+            }
+
+            // Earlier versions still hold what they held when they were made
+            for (int i = 0; i < versions.size(); i++) {
+                assertSameContents(expectedVersions.get(i), versions.get(i));
+            }
+        }
+    }
+}
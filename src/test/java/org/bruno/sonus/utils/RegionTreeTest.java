@@ -0,0 +1,152 @@
+package org.bruno.sonus.utils;
+
+import org.bruno.sonus.data.SoundRegion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionTreeTest {
+    private static final UUID WORLD = new UUID(1, 1);
+
+    private static SoundRegion region(String name, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return new SoundRegion(name, WORLD, "world", minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    private static List<SoundRegion> randomRegions(Random random, int count) {
+        List<SoundRegion> regions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double x = random.nextInt(1000), y = random.nextInt(128), z = random.nextInt(1000);
+            regions.add(region("tree-test-" + i, x, y, z,
+                    x + 1 + random.nextInt(60), y + 1 + random.nextInt(30), z + 1 + random.nextInt(60)));
+        }
+        return regions;
+    }
+
+    private static SoundRegion bruteForce(List<SoundRegion> regions, double x, double y, double z) {
+        return regions.stream()
+                .filter(region -> region.contains(x, y, z))
+                .min(RegionTree.MOST_SPECIFIC_FIRST)
+                .orElse(null);
+    }
+
+    @Test
+    void findsTheMostSpecificRegion() {
+        SoundRegion outer = region("outer", 0, 0, 0, 100, 100, 100);
+        SoundRegion inner = region("inner", 10, 10, 10, 20, 20, 20);
+        RegionTree tree = RegionTree.EMPTY.insert(outer).insert(inner);
+
+        assertSame(inner, tree.findMostSpecific(15, 15, 15));
+        assertSame(outer, tree.findMostSpecific(50, 50, 50));
+        assertNull(tree.findMostSpecific(150, 50, 50));
+        assertEquals(2, tree.size());
+    }
+
+    @Test
+    void removeReturnsANewTreeAndLeavesTheOldOneUntouched() {
+        SoundRegion outer = region("outer", 0, 0, 0, 100, 100, 100);
+        SoundRegion inner = region("inner", 10, 10, 10, 20, 20, 20);
+        RegionTree before = RegionTree.bulkLoad(List.of(outer, inner));
+
+        RegionTree after = before.remove(inner);
+        assertSame(outer, after.findMostSpecific(15, 15, 15));
+        assertSame(inner, before.findMostSpecific(15, 15, 15));
+        assertEquals(1, after.size());
+        assertSame(after, after.remove(inner));
+        assertTrue(after.remove(outer).isEmpty());
+    }
+
+    @Test
+    void bulkLoadedAndInsertedTreesAgreeWithABruteForceSearch() {
+        Random random = new Random(42);
+        List<SoundRegion> regions = randomRegions(random, 2000);
+
+        RegionTree bulk = RegionTree.bulkLoad(regions);
+        RegionTree inserted = RegionTree.EMPTY;
+        for (SoundRegion region : regions) {
+            inserted = inserted.insert(region);
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            double x = random.nextDouble() * 1100, y = random.nextDouble() * 160, z = random.nextDouble() * 1100;
+            SoundRegion expected = bruteForce(regions, x, y, z);
+            assertSame(expected, bulk.findMostSpecific(x, y, z));
+            assertSame(expected, inserted.findMostSpecific(x, y, z));
+        }
+    }
+
+    @Test
+    void findAllReturnsEveryContainingRegion() {
+        Random random = new Random(7);
+        List<SoundRegion> regions = randomRegions(random, 500);
+        RegionTree tree = RegionTree.bulkLoad(regions);
+
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 1100, y = random.nextDouble() * 160, z = random.nextDouble() * 1100;
+            List<SoundRegion> found = new ArrayList<>();
+            tree.findAll(x, y, z, found);
+
+            List<SoundRegion> expected = regions.stream().filter(region -> region.contains(x, y, z)).toList();
+            assertEquals(new HashSet<>(expected), new HashSet<>(found));
+        }
+    }
+
+    @Test
+    void lookupReportsTheDistanceToTheNearestBoundary() {
+        SoundRegion region = region("room", 0, 0, 0, 10, 10, 10);
+        RegionTree tree = RegionTree.EMPTY.insert(region);
+        RegionTree.Lookup lookup = new RegionTree.Lookup();
+
+        tree.lookup(5, 5, 2, 64, lookup);
+        assertSame(region, lookup.region());
+        assertEquals(2, lookup.boundaryDistance(), 1e-9);
+
+        tree.lookup(13, 5, 5, 64, lookup);
+        assertNull(lookup.region());
+        assertEquals(3, lookup.boundaryDistance(), 1e-9);
+
+        // Boundaries further away than the limit are not reported
+        tree.lookup(500, 5, 5, 64, lookup);
+        assertNull(lookup.region());
+        assertEquals(64, lookup.boundaryDistance(), 1e-9);
+    }
+
+    @Test
+    void lookupNeverReportsMoreThanTheTrueBoundaryDistance() {
+        Random random = new Random(99);
+        List<SoundRegion> regions = randomRegions(random, 1000);
+        RegionTree tree = RegionTree.bulkLoad(regions);
+        RegionTree.Lookup lookup = new RegionTree.Lookup();
+
+        for (int i = 0; i < 5000; i++) {
+            double x = random.nextDouble() * 1100, y = random.nextDouble() * 160, z = random.nextDouble() * 1100;
+            tree.lookup(x, y, z, 64, lookup);
+
+            assertSame(bruteForce(regions, x, y, z), lookup.region());
+            double nearest = regions.stream()
+                    .mapToDouble(region -> region.distanceToBoundary(x, y, z))
+                    .min()
+                    .orElse(Double.MAX_VALUE);
+            assertTrue(lookup.boundaryDistance() <= Math.min(nearest, 64) + 1e-9);
+        }
+    }
+
+    @Test
+    void mostSpecificFirstOrdersBySizeThenName() {
+        SoundRegion small = region("b", 0, 0, 0, 1, 1, 1);
+        SoundRegion sameSize = region("a", 5, 5, 5, 6, 6, 6);
+        SoundRegion large = region("c", 0, 0, 0, 50, 50, 50);
+
+        List<SoundRegion> sorted = new ArrayList<>(List.of(large, small, sameSize));
+        sorted.sort(RegionTree.MOST_SPECIFIC_FIRST);
+        assertEquals(List.of(sameSize, small, large), sorted);
+    }
+}